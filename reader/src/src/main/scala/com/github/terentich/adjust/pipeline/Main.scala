@@ -1,44 +1,44 @@
 package com.github.terentich.adjust.pipeline
 
+import java.util.Properties
+
 import org.apache.log4j.Logger
 import org.apache.spark.sql.{SaveMode, SparkSession}
-import org.apache.spark.sql.functions.{col, when}
-import org.apache.spark.sql.types.IntegerType
 
 object Main {
   private implicit lazy val logger: Logger = Logger.getLogger(getClass)
 
+  // stored by the loader for every row of igra_data
+  private val AltitudeColumn = "thousands_altitude"
+
   def main(args: Array[String]): Unit = {
     implicit val spark: SparkSession = SparkSession.
       builder()
       .appName(s"Adjust reader")
       .getOrCreate()
 
-    val dataDf = spark
-      .read.format("jdbc")
-      .option("driver", "org.postgresql.Driver")
-      .option("url", spark.conf.get("spark.db.url"))
-      .option("user", spark.conf.get("spark.db.user"))
-      .option("password", spark.conf.get("spark.db.password"))
-      .option("dbtable", "igra_data")
-      .option("partitionColumn", "day")
-      .option("lowerBound", "1")
-      .option("upperBound", "31")
-      .option("numPartitions", 30)
-      .load()
-
-    val outputDf = dataDf
-      .withColumn("thousands_altitude",
-        when(col("gph") % 1000 === 0, col("gph") / 1000)
-          .otherwise(col("gph") / 1000 + 1)
-          .cast(IntegerType) * 1000
-      )
-      .repartition(col("thousands_altitude"))
-
-    outputDf
+    val url = spark.conf.get("spark.db.url")
+    val properties = new Properties()
+    properties.setProperty("driver", "org.postgresql.Driver")
+    properties.setProperty("user", spark.conf.get("spark.db.user"))
+    properties.setProperty("password", spark.conf.get("spark.db.password"))
+    // the rows are streamed with a cursor instead of reading the whole partition into the executor memory
+    properties.setProperty("fetchsize", spark.conf.get("spark.db.fetchsize", "10000"))
+
+    // by default a few partitions per executor core, so the read scales with the cluster
+    val cores = spark.sparkContext.defaultParallelism
+    val partitions = spark.conf.getOption("spark.db.partitions").map(_.toInt)
+      .getOrElse(cores * spark.conf.get("spark.db.partitions.per.core", "3").toInt)
+    val predicates = PartitionPlanner.plan(url, properties, partitions)
+    logger.info(s"Reading igra_data in ${predicates.length} partitions (cores: $cores): ${predicates.mkString("; ")}")
+
+    // a partition reads whole altitude buckets (or years of one bucket), so no shuffle is needed for the output
+    spark
+      .read
+      .jdbc(url, "igra_data", predicates, properties)
       .write
       .mode(SaveMode.Overwrite)
-      .partitionBy("thousands_altitude")
+      .partitionBy(AltitudeColumn)
       .parquet(spark.conf.get("spark.data.output"))
   }
 }
@@ -0,0 +1,147 @@
+package com.github.terentich.adjust.pipeline
+
+import java.sql.{Connection, DriverManager}
+import java.util.Properties
+
+import org.apache.log4j.Logger
+
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Plans the parallel JDBC read of igra_data: the predicates of the partitions, contiguous ranges of
+ * (thousands_altitude, year) with about the same amount of rows.
+ *
+ * The row counts come from the statistics, the first available of:
+ *  - igra_summary of the loader: the exact rows by bucket and year;
+ *  - pg_stats of thousands_altitude: the frequencies of the buckets (the most common values) after ANALYZE;
+ *  - the lowest and the highest bucket of igra_data, every bucket is counted the same.
+ *
+ * A range holds whole buckets unless a bucket has more rows than a partition, then it is split by years,
+ * so most tasks write their own output directories. The first and the last range are open, so no row is missed.
+ */
+object PartitionPlanner {
+  private lazy val logger: Logger = Logger.getLogger(getClass)
+
+  private val AltitudeColumn = "thousands_altitude"
+  private val BucketSize = 1000
+
+  /**
+   * The rows of an altitude bucket, of one year if the year is known.
+   */
+  case class Cell(bucket: Int, year: Option[Int], rows: Double)
+
+  def plan(url: String, properties: Properties, partitions: Int): Array[String] = {
+    Class.forName(properties.getProperty("driver"))
+    val connection = DriverManager.getConnection(url, properties)
+
+    try {
+      val cells = statistics(connection)
+      val predicates = this.predicates(cells, partitions)
+      logger.info(s"Read plan: ${predicates.length} partitions of ${cells.size} statistics cells")
+      predicates
+    } finally {
+      connection.close()
+    }
+  }
+
+  def statistics(connection: Connection): Seq[Cell] = {
+    val summary = summaryCells(connection)
+
+    if (summary.nonEmpty) {
+      logger.info("Read plan statistics: igra_summary")
+      summary
+    } else {
+      val analyzed = analyzedCells(connection)
+
+      if (analyzed.nonEmpty) {
+        logger.info("Read plan statistics: pg_stats")
+        analyzed
+      } else {
+        logger.info("Read plan statistics: bounds of igra_data")
+        boundCells(connection)
+      }
+    }
+  }
+
+  /**
+   * Cuts the cells sorted by the bucket and the year where the running total of the rows reaches the next
+   * share of the partitions.
+   */
+  def predicates(cells: Seq[Cell], partitions: Int): Array[String] = {
+    val sorted = cells.filter(_.rows > 0).sortBy(cell => (cell.bucket, cell.year.getOrElse(0)))
+    val total = sorted.map(_.rows).sum
+
+    if (partitions <= 1 || total <= 0) {
+      return Array("TRUE")
+    }
+
+    // the first cells of the ranges after the first one
+    val starts = ArrayBuffer[Cell]()
+    var running = 0.0
+
+    for (i <- sorted.indices.dropRight(1)) {
+      running += sorted(i).rows
+
+      if (running >= total * (starts.size + 1) / partitions) {
+        starts += sorted(i + 1)
+      }
+    }
+
+    val bounds = None +: starts.map(Some(_)) :+ None
+
+    bounds.sliding(2).map { case Seq(from, to) =>
+      (from.map(cell => s"${key(cell)} >= ${value(cell)}") ++ to.map(cell => s"${key(cell)} < ${value(cell)}"))
+        .reduceOption(_ + " AND " + _)
+        .getOrElse("TRUE")
+    }.toArray
+  }
+
+  private def key(cell: Cell): String =
+    if (cell.year.isDefined) s"($AltitudeColumn, year)" else AltitudeColumn
+
+  private def value(cell: Cell): String =
+    cell.year.map(year => s"(${cell.bucket}, $year)").getOrElse(cell.bucket.toString)
+
+  private def summaryCells(connection: Connection): Seq[Cell] =
+    if (!exists(connection, "igra_summary")) Seq.empty
+    else query(connection, s"SELECT $AltitudeColumn, year, sum(levels) FROM igra_summary GROUP BY 1, 2") { rs =>
+      Cell(rs.getInt(1), Some(rs.getInt(2)), rs.getLong(3).toDouble)
+    }
+
+  private def analyzedCells(connection: Connection): Seq[Cell] =
+    query(connection,
+      s"""SELECT most_common_vals::text::int[], most_common_freqs FROM pg_stats
+         |WHERE attname = '$AltitudeColumn' AND tablename IN ('igra_data', 'sounding_level')
+         |  AND most_common_vals IS NOT NULL
+         |ORDER BY inherited DESC LIMIT 1""".stripMargin) { rs =>
+      val buckets = rs.getArray(1).getArray.asInstanceOf[Array[Integer]]
+      val frequencies = rs.getArray(2).getArray.asInstanceOf[Array[java.lang.Float]]
+      buckets.indices.map(i => Cell(buckets(i), None, frequencies(i).doubleValue()))
+    }.flatten
+
+  private def boundCells(connection: Connection): Seq[Cell] =
+    query(connection, s"SELECT min($AltitudeColumn), max($AltitudeColumn) FROM igra_data") { rs =>
+      if (rs.getObject(1) == null) Seq.empty
+      else (rs.getInt(1) to rs.getInt(2) by BucketSize).map(bucket => Cell(bucket, None, 1))
+    }.flatten
+
+  private def exists(connection: Connection, table: String): Boolean =
+    query(connection, s"SELECT to_regclass('$table') IS NOT NULL")(_.getBoolean(1)).headOption.getOrElse(false)
+
+  private def query[T](connection: Connection, sql: String)(row: java.sql.ResultSet => T): Seq[T] = {
+    val statement = connection.createStatement()
+
+    try {
+      val rs = statement.executeQuery(sql)
+      val rows = ArrayBuffer[T]()
+
+      while (rs.next()) {
+        rows += row(rs)
+      }
+
+      rows
+    } finally {
+      statement.close()
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.github.terentich.adjust.dataloader;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options. The allocation profiler ({@code -prof gc}) is enabled
+ * unless other profilers are given, so every result has the allocated bytes per operation
+ * ({@code gc.alloc.rate.norm}) next to the operations per second.
+ * <pre>
+ * mvn -P jmh package
+ * java -jar target/benchmarks.jar [JMH options]
+ * </pre>
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+
+        if (commandLineOptions.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.terentich.adjust.dataloader;
+
+import com.github.terentich.adjust.dataloader.io.FixedColumnLineParser;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The bundled sample of the IGRA v2 data: soundings of several stations with all the flag and missing value
+ * variants, accepted by both line parsers.
+ */
+public final class SampleData {
+    public static final String RESOURCE = "/igra-sample.txt";
+    public static final int HEADER_LINES = 24;
+    public static final int RECORD_LINES = 868;
+    public static final int LINES = HEADER_LINES + RECORD_LINES;
+
+    private SampleData() {
+    }
+
+    public static List<String> lines() throws IOException {
+        try (InputStream input = Objects.requireNonNull(SampleData.class.getResourceAsStream(RESOURCE), RESOURCE);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.US_ASCII))) {
+            List<String> lines = reader.lines().collect(Collectors.toList());
+
+            if (lines.size() != LINES || headerLines(lines).size() != HEADER_LINES) {
+                throw new IllegalStateException("Unexpected sample data: " + lines.size() + " lines");
+            }
+
+            return lines;
+        }
+    }
+
+    public static List<String> headerLines(List<String> lines) {
+        return lines.stream().filter(line -> line.startsWith("#")).collect(Collectors.toList());
+    }
+
+    public static List<String> recordLines(List<String> lines) {
+        return lines.stream().filter(line -> !line.startsWith("#")).collect(Collectors.toList());
+    }
+
+    public static IgraBatch batch(List<String> lines) {
+        FixedColumnLineParser parser = new FixedColumnLineParser();
+        IgraBatch batch = new IgraBatch(RECORD_LINES);
+        int headerIndex = -1;
+
+        for (String line : lines) {
+            if (line.startsWith("#")) {
+                headerIndex = batch.addHeader(parser.parseHeader(line));
+            } else if (!parser.parseRecord(line, batch, headerIndex)) {
+                throw new IllegalStateException("Invalid sample line: " + line);
+            }
+        }
+
+        return batch;
+    }
+}
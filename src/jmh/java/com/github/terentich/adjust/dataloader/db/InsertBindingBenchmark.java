@@ -0,0 +1,52 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.SampleData;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binding of the rows to the {@code INSERT} statement by
+ * {@link InsertDataWriter#createIngraDataSql(java.sql.PreparedStatement, IgraBatch, int)}
+ * with a statement without a database; one operation is one row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class InsertBindingBenchmark {
+    private final InsertDataWriter dataWriter = new InsertDataWriter();
+    private final StubPreparedStatement statement = new StubPreparedStatement();
+    private IgraBatch batch;
+
+    @Setup
+    public void setUp() throws IOException {
+        batch = SampleData.batch(SampleData.lines());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SampleData.RECORD_LINES)
+    public long createIngraDataSql() throws SQLException {
+        for (int i = 0; i < batch.headerCount(); i++) {
+            dataWriter.createIngraDataSql(statement, batch, i);
+        }
+
+        statement.clearBatch();
+        return statement.checksum();
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import com.github.terentich.adjust.dataloader.SampleData;
+import com.github.terentich.adjust.dataloader.db.IgraDataSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * The whole file path of {@link IgraFileReader#processIgraData(File)}: unzipping, line splitting, parsing and
+ * batching, with a sink which accepts the batches at once. The zip of the repeated sample is built at the setup
+ * and stays in the page cache; one operation is one line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class FileReaderBenchmark {
+    private static final int REPEAT = 200;
+
+    @Param({IgraLineParser.FIXED, IgraLineParser.REGEX})
+    public String parser;
+
+    @Param({IgraLineReader.ASCII, IgraLineReader.UTF8})
+    public String input;
+
+    @Param({"0", "4"})
+    public int chunkParallelism;
+
+    private File zipFile;
+    private ForkJoinPool chunkPool;
+    private IgraFileReader fileReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        zipFile = Files.createTempFile("igra-benchmark", ".zip").toFile();
+        zipFile.deleteOnExit();
+        byte[] sample = (String.join("\n", SampleData.lines()) + "\n").getBytes(StandardCharsets.US_ASCII);
+
+        try (OutputStream output = new FileOutputStream(zipFile);
+             ZipOutputStream zip = new ZipOutputStream(output)) {
+            zip.putNextEntry(new ZipEntry("igra-sample-data.txt"));
+
+            for (int i = 0; i < REPEAT; i++) {
+                zip.write(sample);
+            }
+
+            zip.closeEntry();
+        }
+
+        Properties config = new Properties();
+        config.setProperty(IgraFileReader.PARSER_PROPERTY, parser);
+        config.setProperty(IgraFileReader.INPUT_PROPERTY, input);
+
+        IgraDataSink dataSink = batch -> CompletableFuture.completedFuture(batch.size());
+        chunkPool = chunkParallelism > 0 ? new ForkJoinPool(chunkParallelism) : null;
+        fileReader = new IgraFileReader(dataSink, config,
+                new IgraBatchPool(2, IgraFileReader.BATCH_CAPACITY), chunkPool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (chunkPool != null) {
+            chunkPool.shutdown();
+        }
+
+        zipFile.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REPEAT * SampleData.LINES)
+    public int processIgraData() throws IOException {
+        return fileReader.processIgraData(zipFile);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import com.github.terentich.adjust.dataloader.SampleData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the single lines by {@link IgraFileReader#createHeader(String)} and
+ * {@link IgraFileReader#createRecord(String)}; one operation is one line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class LineParserBenchmark {
+    @Param({IgraLineParser.FIXED, IgraLineParser.REGEX})
+    public String parser;
+
+    private IgraFileReader fileReader;
+    private String[] headerLines;
+    private String[] recordLines;
+
+    @Setup
+    public void setUp() throws IOException {
+        Properties config = new Properties();
+        config.setProperty(IgraFileReader.PARSER_PROPERTY, parser);
+        fileReader = new IgraFileReader(batch -> null, config);
+
+        List<String> lines = SampleData.lines();
+        headerLines = SampleData.headerLines(lines).toArray(new String[0]);
+        recordLines = SampleData.recordLines(lines).toArray(new String[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SampleData.HEADER_LINES)
+    public void createHeader(Blackhole blackhole) {
+        for (String line : headerLines) {
+            blackhole.consume(fileReader.createHeader(line));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SampleData.RECORD_LINES)
+    public void createRecord(Blackhole blackhole) {
+        for (String line : recordLines) {
+            blackhole.consume(fileReader.createRecord(line));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import com.github.terentich.adjust.dataloader.SampleData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizing of the lines by {@link RegexLineParser#parse(CharSequence, java.util.regex.Pattern, int)}, without
+ * the conversion of the tokens; one operation is one line.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class RegexParseBenchmark {
+    private final RegexLineParser lineParser = new RegexLineParser();
+    private String[] headerLines;
+    private String[] recordLines;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<String> lines = SampleData.lines();
+        headerLines = SampleData.headerLines(lines).toArray(new String[0]);
+        recordLines = SampleData.recordLines(lines).toArray(new String[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SampleData.HEADER_LINES)
+    public void parseHeader(Blackhole blackhole) {
+        for (String line : headerLines) {
+            blackhole.consume(lineParser.parse(line, RegexLineParser.HEADER_PATTERN, 11));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SampleData.RECORD_LINES)
+    public void parseRecord(Blackhole blackhole) {
+        for (String line : recordLines) {
+            blackhole.consume(lineParser.parse(line, RegexLineParser.RECORD_PATTERN, 13));
+        }
+    }
+}
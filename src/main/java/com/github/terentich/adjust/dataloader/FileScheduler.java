@@ -0,0 +1,81 @@
+package com.github.terentich.adjust.dataloader;
+
+import com.github.terentich.adjust.dataloader.io.IgraInput;
+import com.github.terentich.adjust.dataloader.metrics.LoaderMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the input tasks on a bounded amount of worker threads.
+ * <p>
+ * The inputs (files and archive entries) are started in the order of their uncompressed size, the largest first,
+ * so a big input does not start last and does not prolong the whole run alone.
+ * A failed task does not stop the others; it is reported in the {@link Result}.
+ */
+public class FileScheduler {
+    private static final Logger log = LoggerFactory.getLogger(FileScheduler.class);
+
+    private final int workers;
+
+    public FileScheduler(int workers) {
+        this.workers = workers;
+    }
+
+    public Result run(List<IgraInput> inputs, InputTask task) throws InterruptedException {
+        List<IgraInput> orderedInputs = new ArrayList<>(inputs);
+        orderedInputs.sort(Comparator.comparingLong(IgraInput::size).reversed());
+        LoaderMetrics.get().startLoad(inputs.size(), inputs.stream().mapToLong(IgraInput::size).sum());
+
+        ExecutorService threadPool = Executors.newFixedThreadPool(Math.max(1, Math.min(workers, inputs.size())));
+        Map<IgraInput, Future<Integer>> results = new LinkedHashMap<>();
+
+        try {
+            for (IgraInput input : orderedInputs) {
+                results.put(input, threadPool.submit(() -> task.process(input)));
+            }
+
+            Result result = new Result();
+
+            for (Map.Entry<IgraInput, Future<Integer>> entry : results.entrySet()) {
+                try {
+                    result.totalLines += entry.getValue().get();
+                } catch (ExecutionException e) {
+                    log.error("Unable to process input: {}", entry.getKey(), e.getCause());
+                    result.failedInputs.add(entry.getKey());
+                }
+            }
+
+            return result;
+        } finally {
+            threadPool.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    public interface InputTask {
+        int process(IgraInput input) throws Exception;
+    }
+
+    public static final class Result {
+        private int totalLines;
+        private final List<IgraInput> failedInputs = new ArrayList<>();
+
+        public int totalLines() {
+            return totalLines;
+        }
+
+        public List<IgraInput> failedInputs() {
+            return failedInputs;
+        }
+    }
+}
@@ -1,44 +1,63 @@
 package com.github.terentich.adjust.dataloader;
 
+import com.github.terentich.adjust.dataloader.db.BatchSizer;
+import com.github.terentich.adjust.dataloader.db.BatchWriterPool;
 import com.github.terentich.adjust.dataloader.db.DbManager;
+import com.github.terentich.adjust.dataloader.db.IgraDataSink;
+import com.github.terentich.adjust.dataloader.io.IgraBatchPool;
 import com.github.terentich.adjust.dataloader.io.IgraFileReader;
+import com.github.terentich.adjust.dataloader.io.IgraInput;
+import com.github.terentich.adjust.dataloader.io.Quarantine;
+import com.github.terentich.adjust.dataloader.io.SoundingDedup;
+import com.github.terentich.adjust.dataloader.metrics.LoaderMetrics;
+import com.github.terentich.adjust.dataloader.metrics.ProgressReporter;
+import com.github.terentich.adjust.dataloader.model.LoadCheckpoint;
+import com.github.terentich.adjust.dataloader.parquet.ParquetBatchWriter;
+import com.github.terentich.adjust.dataloader.spool.SpoolWriter;
+import com.github.terentich.adjust.dataloader.store.StoreWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
     private static final Logger log = LoggerFactory.getLogger(Main.class);
 
-    private static final int MAX_PARALLEL_THREADS = 5;
-    private static final Predicate<File> isArchivePredicate = (File file) ->
-            file.getName().endsWith(".zip");
+    private static final String PARSERS_PROPERTY = "loader.parsers";
+    private static final String CHUNK_PARALLELISM_PROPERTY = "loader.chunk.parallelism";
+    private static final String INCREMENTAL_PROPERTY = "loader.incremental";
+    private static final String OUTPUT_PROPERTY = "loader.output";
+    private static final String DATABASE_OUTPUT = "database";
+    private static final String PARQUET_OUTPUT = "parquet";
+    private static final String SPOOL_OUTPUT = "spool";
+    private static final String STORE_OUTPUT = "store";
     private static Properties config;
+    private static IgraDataSink dataSink;
+    private static BatchSizer batchSizer;
+    private static IgraBatchPool batchPool;
+    private static ForkJoinPool chunkPool;
+    private static IgraBatchPool chunkBatchPool;
+    private static Quarantine quarantine;
+    private static SoundingDedup dedup;
+    private static Map<String, LoadCheckpoint> loadManifest;
 
     public static void main(String[] args) {
         if (args.length < 2) {
             System.err.println("Missing required input parameters:");
             System.err.println(Main.class.getSimpleName() + " <inputPath> <configFile>");
-            System.err.println("inputPath - the path with archived files (zip) in the Igra format");
+            System.err.println("inputPath - the path with archived (zip) or text (txt) files in the Igra format, " +
+                               "subdirectories are included");
             System.err.println("configFile - the property file with the database settings");
         }
 
@@ -46,84 +65,198 @@ public class Main {
         String configFile = args[1];
 
         config = getProperties(configFile);
-        DbManager dbManager = new DbManager(config);
+        LoaderMetrics.get().register();
+        List<IgraInput> inputs;
 
-        try (Connection ignored = dbManager.createDatabaseConnection();
-             Stream<Path> paths = Files.list(inputPath)) {
+        try {
+            inputs = IgraInput.scan(inputPath);
+        } catch (IOException e) {
+            log.error("Unable to read input path", e);
+            return;
+        }
 
-            log.info("Creating database");
-            dbManager.createDatabase();
+        log.info("Found inputs (files and archive entries): {}", inputs.size());
 
-            log.info("Start processing input path: {}", inputPath);
+        dedup = SoundingDedup.fromConfig(config);
+        String output = config.getProperty(OUTPUT_PROPERTY, DATABASE_OUTPUT).trim();
 
-            List<File> files = paths
-                    .filter(file -> !Files.isDirectory(file))
-                    .map(Path::toFile)
-                    .filter(isArchivePredicate)
-                    .collect(Collectors.toList());
+        if (PARQUET_OUTPUT.equalsIgnoreCase(output)) {
+            loadToParquet(inputPath, inputs);
+        } else if (SPOOL_OUTPUT.equalsIgnoreCase(output)) {
+            loadToSpool(inputPath, inputs);
+        } else if (STORE_OUTPUT.equalsIgnoreCase(output)) {
+            loadToStore(inputPath, inputs);
+        } else {
+            loadToDatabase(inputPath, inputs);
+        }
+    }
 
-            int maxThreads = Math.max(files.size(), MAX_PARALLEL_THREADS);
-            ExecutorService threadPool = Executors.newFixedThreadPool(maxThreads);
+    private static void loadToDatabase(Path inputPath, List<IgraInput> inputs) {
+        DbManager dbManager = new DbManager(config);
+
+        try (Connection ignored = dbManager.createDatabaseConnection()) {
+            boolean incremental = Boolean.parseBoolean(config.getProperty(INCREMENTAL_PROPERTY));
 
-            List<Callable<Integer>> tasks = files
-                    .stream()
-                    .map(Main::createTask)
-                    .collect(Collectors.toList());
+            if (incremental && dbManager.isBulkLoad()) {
+                log.warn("Incremental load is not possible in the bulk load mode, all files are loaded");
+                incremental = false;
+            }
 
-            List<Future<Integer>> results = threadPool.invokeAll(tasks);
-            threadPool.shutdown();
+            if (incremental) {
+                log.info("Creating database if it does not exist");
+                dbManager.createDatabaseIfMissing();
+                loadManifest = dbManager.readLoadManifest();
 
-            int grandTotal = results
-                    .stream()
-                    .mapToInt(Main::getTaskResult)
-                    .sum();
+                if (dedup != null) {
+                    long startTime = System.currentTimeMillis();
+                    long soundings = dbManager.readSoundings(dedup);
+                    log.info("Soundings of the database have been read for the deduplication: {} ({} ms)",
+                            soundings, System.currentTimeMillis() - startTime);
+                }
+            } else {
+                log.info("Creating database");
+                dbManager.createDatabase();
+            }
+
+            BatchWriterPool.BatchWriterFactory writerFactory = BatchWriterPool.databaseWriters(config);
+
+            if (SpoolWriter.isConfigured(config) && incremental) {
+                log.warn("Failed batches are not spooled in the incremental load, the checkpoints of the files " +
+                         "would cover the spooled soundings");
+            } else if (SpoolWriter.isConfigured(config)) {
+                log.info("Failed batches are spooled to: {}", config.getProperty(SpoolWriter.PATH_PROPERTY));
+                writerFactory = SpoolWriter.failover(writerFactory, SpoolWriter.factory(config));
+            }
+
+            log.info("Start processing input path: {}", inputPath);
+            loadInputs(inputs, new BatchWriterPool(config, writerFactory));
+            dbManager.finishLoad();
 
-            log.info("Grand total data lines have been processed in files: {}", grandTotal);
             log.info("Saved rows in the database:");
             dbManager.showQueryResults("select count(*) from igra_data");
-        } catch (SQLException e) {
+        } catch (SQLException | IOException e) {
             log.error("Unable to connect to database", e);
+        } catch (InterruptedException e) {
+            log.error("Unable to execute tasks", e);
+        }
+    }
+
+    private static void loadToParquet(Path inputPath, List<IgraInput> inputs) {
+        if (Boolean.parseBoolean(config.getProperty(INCREMENTAL_PROPERTY))) {
+            log.warn("Incremental load is supported only for the database output, all files are loaded");
+        }
+
+        try {
+            BatchWriterPool.BatchWriterFactory writerFactory = ParquetBatchWriter.factory(config);
+
+            log.info("Start processing input path: {}", inputPath);
+            loadInputs(inputs, new BatchWriterPool(config, writerFactory));
+            log.info("Parquet files have been written: {}", config.getProperty(ParquetBatchWriter.PATH_PROPERTY));
         } catch (IOException e) {
-            log.error("Unable to read input path", e);
+            log.error("Unable to prepare Parquet output", e);
         } catch (InterruptedException e) {
             log.error("Unable to execute tasks", e);
         }
     }
 
-    private static Callable<Integer> createTask(File file) {
-        return () -> {
-            DbManager dbManager = new DbManager(config);
+    private static void loadToSpool(Path inputPath, List<IgraInput> inputs) {
+        if (Boolean.parseBoolean(config.getProperty(INCREMENTAL_PROPERTY))) {
+            log.warn("Incremental load is supported only for the database output, all files are loaded");
+        }
+
+        try {
+            BatchWriterPool.BatchWriterFactory writerFactory = SpoolWriter.factory(config);
 
-            try (Connection ignored = dbManager.createDatabaseConnection()) {
-                IgraFileReader fileReader = new IgraFileReader(dbManager);
-                return processFile(fileReader, file);
-            }
-        };
+            log.info("Start processing input path: {}", inputPath);
+            loadInputs(inputs, new BatchWriterPool(config, writerFactory));
+            log.info("Spool files have been written: {}", config.getProperty(SpoolWriter.PATH_PROPERTY));
+        } catch (IOException e) {
+            log.error("Unable to prepare spool output", e);
+        } catch (InterruptedException e) {
+            log.error("Unable to execute tasks", e);
+        }
     }
 
-    private static Integer getTaskResult(Future<Integer> future) {
-        Integer result = null;
+    private static void loadToStore(Path inputPath, List<IgraInput> inputs) {
+        if (Boolean.parseBoolean(config.getProperty(INCREMENTAL_PROPERTY))) {
+            log.warn("Incremental load is supported only for the database output, all files are loaded");
+        }
+
         try {
-            result = future.get();
-        } catch (InterruptedException | ExecutionException ignored1) {
+            BatchWriterPool.BatchWriterFactory writerFactory = StoreWriter.factory(config);
+
+            log.info("Start processing input path: {}", inputPath);
+            loadInputs(inputs, new BatchWriterPool(config, writerFactory));
+            log.info("Store segments have been written: {}", config.getProperty(StoreWriter.PATH_PROPERTY));
+        } catch (IOException e) {
+            log.error("Unable to prepare store output", e);
+        } catch (InterruptedException e) {
+            log.error("Unable to execute tasks", e);
+        }
+    }
+
+    private static void loadInputs(List<IgraInput> inputs, BatchWriterPool writerPool) throws InterruptedException {
+        int parsers = Integer.parseInt(config.getProperty(PARSERS_PROPERTY,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        FileScheduler scheduler = new FileScheduler(parsers);
+
+        int chunkParallelism = Integer.parseInt(config.getProperty(CHUNK_PARALLELISM_PROPERTY, "0"));
+        if (chunkParallelism > 0) {
+            chunkPool = new ForkJoinPool(chunkParallelism);
+            chunkBatchPool = new IgraBatchPool(parsers * IgraFileReader.chunkBatchCount(chunkPool),
+                    IgraFileReader.chunkBatchCapacity());
+        }
+
+        FileScheduler.Result result;
+        ProgressReporter progressReporter = ProgressReporter.start(config, LoaderMetrics.get());
+        quarantine = Quarantine.fromConfig(config);
+
+        try (writerPool) {
+            dataSink = writerPool;
+            batchSizer = writerPool.batchSizer();
+            batchPool = new IgraBatchPool(parsers + writerPool.capacity(),
+                    IgraFileReader.batchCapacity(batchSizer.maxRows()));
+            result = scheduler.run(inputs, Main::processInput);
+        } finally {
+            if (chunkPool != null) {
+                chunkPool.shutdown();
+            }
+
+            if (quarantine != null) {
+                quarantine.close();
+            }
+
+            progressReporter.close();
+        }
+
+        int grandTotal = result.totalLines();
+
+        if (!result.failedInputs().isEmpty()) {
+            log.error("Inputs have not been processed: {}", result.failedInputs());
         }
 
-        return result;
+        log.info("Grand total data lines have been processed in inputs: {}", grandTotal);
     }
 
-    private static int processFile(IgraFileReader fileReader, File file) {
+    private static int processInput(IgraInput input) throws IOException {
+        IgraFileReader fileReader = new IgraFileReader(dataSink, config, batchPool, chunkPool);
+        fileReader.setLoadManifest(loadManifest);
+        fileReader.setBatchSizer(batchSizer);
+        fileReader.setChunkBatchPool(chunkBatchPool);
+        fileReader.setQuarantine(quarantine);
+        fileReader.setDedup(dedup);
         int totalLines;
 
         long startTime = System.currentTimeMillis();
-        log.info("Processing input file: {}", file.getPath());
-        totalLines = fileReader.processIgraData(file);
+        log.info("Processing input: {}", input);
+        totalLines = fileReader.processIgraData(input);
         Duration duration = Duration.ofMillis(System.currentTimeMillis() - startTime);
-        log.info("File has been processed: {} seconds", duration.getSeconds());
+        log.info("Input has been processed: {} seconds ({})", duration.getSeconds(), input);
 
         return totalLines;
     }
 
-    private static Properties getProperties(String fileName) {
+    static Properties getProperties(String fileName) {
         Properties prop = new Properties();
 
         try (InputStream input = new FileInputStream(fileName)) {
@@ -0,0 +1,175 @@
+package com.github.terentich.adjust.dataloader;
+
+import com.github.terentich.adjust.dataloader.db.BatchWriterPool;
+import com.github.terentich.adjust.dataloader.db.DbManager;
+import com.github.terentich.adjust.dataloader.io.IgraBatchPool;
+import com.github.terentich.adjust.dataloader.io.IgraFileReader;
+import com.github.terentich.adjust.dataloader.metrics.LoaderMetrics;
+import com.github.terentich.adjust.dataloader.metrics.ProgressReporter;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.LoadCheckpoint;
+import com.github.terentich.adjust.dataloader.spool.SpoolBlock;
+import com.github.terentich.adjust.dataloader.spool.SpoolReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Loads the spool files ({@code loader.output=spool} or the batches spooled after the database failures) into
+ * the database without parsing the inputs again. The data is added to the existing tables; a replayed file
+ * is renamed to {@code *.replayed}, so it is not loaded twice.
+ * <p>
+ * Every block is committed with its checkpoint in {@code load_manifest} ({@code <file>#<offset>}), so the replay
+ * of a partly replayed file skips the committed blocks. The checkpoints of the file are deleted after it has been
+ * replayed completely.
+ */
+public class SpoolReplay {
+    private static final Logger log = LoggerFactory.getLogger(SpoolReplay.class);
+
+    private static final String REPLAYED_SUFFIX = ".replayed";
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Missing required input parameters:");
+            System.err.println(SpoolReplay.class.getSimpleName() + " <spoolPath> <configFile>");
+            System.err.println("spoolPath - the spool file or the path with spool files, subdirectories are included");
+            System.err.println("configFile - the property file with the database settings");
+            return;
+        }
+
+        Path spoolPath = Paths.get(args[0]);
+        Properties config = Main.getProperties(args[1]);
+        LoaderMetrics.get().register();
+        List<Path> files;
+
+        try {
+            files = SpoolReader.scan(spoolPath);
+        } catch (IOException e) {
+            log.error("Unable to read spool path", e);
+            return;
+        }
+
+        log.info("Found spool files: {}", files.size());
+        DbManager dbManager = new DbManager(config);
+
+        try (Connection ignored = dbManager.createDatabaseConnection()) {
+            log.info("Creating database if it does not exist");
+            dbManager.createDatabaseIfMissing();
+            Map<String, LoadCheckpoint> manifest = dbManager.readLoadManifest();
+
+            BatchWriterPool writerPool = new BatchWriterPool(config);
+            IgraBatchPool batchPool = new IgraBatchPool(writerPool.capacity() + 1,
+                    IgraFileReader.batchCapacity(writerPool.batchSizer().maxRows()));
+            long savedRows = 0;
+
+            ProgressReporter progressReporter = ProgressReporter.start(config, LoaderMetrics.get());
+
+            try (writerPool) {
+                for (Path file : files) {
+                    savedRows += replay(file, writerPool, batchPool, dbManager, manifest);
+                }
+            } finally {
+                progressReporter.close();
+            }
+
+            dbManager.finishLoad();
+            log.info("Grand total data rows have been replayed: {}", savedRows);
+        } catch (SQLException | IOException e) {
+            log.error("Unable to connect to database", e);
+        } catch (InterruptedException e) {
+            log.error("Unable to execute tasks", e);
+        }
+    }
+
+    /**
+     * @return the saved rows of the file
+     */
+    private static long replay(Path file, BatchWriterPool writerPool, IgraBatchPool batchPool, DbManager dbManager,
+                               Map<String, LoadCheckpoint> manifest) throws InterruptedException {
+        List<CompletableFuture<Integer>> savedBatches = new ArrayList<>();
+        int skippedBlocks = 0;
+        long startTime = System.currentTimeMillis();
+        boolean completed = false;
+
+        log.info("Replaying spool file: {}", file);
+
+        try (SpoolReader reader = new SpoolReader(file)) {
+            while (true) {
+                IgraBatch batch = batchPool.acquire();
+                boolean hasBlock;
+
+                try {
+                    hasBlock = reader.read(batch);
+                } catch (IOException | RuntimeException e) {
+                    batchPool.release(batch);
+                    throw e;
+                }
+
+                if (!hasBlock) {
+                    batchPool.release(batch);
+                    break;
+                }
+
+                SpoolBlock block = reader.block();
+
+                if (block.isCommitted(manifest)) {
+                    batchPool.release(batch);
+                    skippedBlocks++;
+                    continue;
+                }
+
+                batch.setCheckpoint(block.checkpoint(batch.headerCount()));
+                CompletableFuture<Integer> savedBatch = writerPool.save(batch);
+                savedBatch.whenComplete((savedLines, error) -> batchPool.release(batch));
+                savedBatches.add(savedBatch);
+            }
+
+            completed = true;
+        } catch (IOException | RuntimeException e) {
+            log.error("Unable to read spool file after {} batches: {}", savedBatches.size() + skippedBlocks, file, e);
+        }
+
+        if (skippedBlocks > 0) {
+            log.info("Spool blocks committed by the previous replay have been skipped: {} ({})", skippedBlocks, file);
+        }
+
+        long savedRows = 0;
+
+        for (CompletableFuture<Integer> savedBatch : savedBatches) {
+            try {
+                savedRows += savedBatch.get();
+            } catch (ExecutionException e) {
+                log.error("Unable to save batch of spool file: {}", file, e.getCause());
+                completed = false;
+            }
+        }
+
+        if (completed) {
+            try {
+                Files.move(file, file.resolveSibling(file.getFileName() + REPLAYED_SUFFIX));
+                dbManager.deleteLoadManifest(SpoolBlock.pathPrefix(file));
+            } catch (IOException e) {
+                log.error("Unable to mark spool file as replayed: {}", file, e);
+            } catch (SQLException e) {
+                log.warn("Unable to delete checkpoints of replayed spool file: {}", file, e);
+            }
+        }
+
+        log.info("Spool file has been replayed: {} seconds, rows = {} ({})",
+                Duration.ofMillis(System.currentTimeMillis() - startTime).getSeconds(), savedRows, file);
+        return savedRows;
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.terentich.adjust.dataloader.concurrent;
+
+/**
+ * A concurrent set of 64-bit fingerprints in primitive arrays: open addressing with linear probing, striped into
+ * segments by the high bits of the fingerprint, each segment is locked only for its own insert and grows
+ * independently. About 12 bytes per element, no objects per element.
+ * <p>
+ * The fingerprints are expected to be well mixed hashes; {@code 0} marks an empty slot and is stored as {@code 1}.
+ */
+public final class FingerprintSet {
+    private static final int SEGMENT_BITS = 6;
+    private static final int MIN_SEGMENT_CAPACITY = 1024;
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    /**
+     * @param expectedSize the expected amount of the elements; the set grows beyond it
+     */
+    public FingerprintSet(long expectedSize) {
+        long segmentSize = expectedSize / segments.length + 1;
+        int capacity = MIN_SEGMENT_CAPACITY;
+
+        while (capacity < segmentSize / LOAD_FACTOR && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * @return {@code true} if the fingerprint has not been in the set
+     */
+    public boolean add(long fingerprint) {
+        long value = fingerprint == 0 ? 1 : fingerprint;
+        return segments[(int) (value >>> (Long.SIZE - SEGMENT_BITS))].add(value);
+    }
+
+    /**
+     * @return {@code true} if the fingerprint has been in the set
+     */
+    public boolean remove(long fingerprint) {
+        long value = fingerprint == 0 ? 1 : fingerprint;
+        return segments[(int) (value >>> (Long.SIZE - SEGMENT_BITS))].remove(value);
+    }
+
+    public boolean contains(long fingerprint) {
+        long value = fingerprint == 0 ? 1 : fingerprint;
+        return segments[(int) (value >>> (Long.SIZE - SEGMENT_BITS))].contains(value);
+    }
+
+    public long size() {
+        long size = 0;
+
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+
+        return size;
+    }
+
+    private static final class Segment {
+        private long[] table;
+        private int size;
+        private int threshold;
+
+        private Segment(int capacity) {
+            allocate(capacity);
+        }
+
+        synchronized boolean add(long value) {
+            if (size >= threshold) {
+                grow();
+            }
+
+            int mask = table.length - 1;
+
+            for (int i = (int) value & mask; ; i = (i + 1) & mask) {
+                long slot = table[i];
+
+                if (slot == 0) {
+                    table[i] = value;
+                    size++;
+                    return true;
+                } else if (slot == value) {
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Empties the slot of the value and moves the next values of the probe sequence into the gap
+         * when the gap is between their home slot and their slot, so no lookup stops at the gap.
+         */
+        synchronized boolean remove(long value) {
+            int mask = table.length - 1;
+            int gap = (int) value & mask;
+
+            while (table[gap] != value) {
+                if (table[gap] == 0) {
+                    return false;
+                }
+
+                gap = (gap + 1) & mask;
+            }
+
+            for (int i = (gap + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+                int home = (int) table[i] & mask;
+
+                if (((i - home) & mask) >= ((i - gap) & mask)) {
+                    table[gap] = table[i];
+                    gap = i;
+                }
+            }
+
+            table[gap] = 0;
+            size--;
+            return true;
+        }
+
+        synchronized boolean contains(long value) {
+            int mask = table.length - 1;
+
+            for (int i = (int) value & mask; ; i = (i + 1) & mask) {
+                long slot = table[i];
+
+                if (slot == value) {
+                    return true;
+                } else if (slot == 0) {
+                    return false;
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] old = table;
+            allocate(old.length * 2);
+            int mask = table.length - 1;
+
+            for (long value : old) {
+                if (value != 0) {
+                    int i = (int) value & mask;
+
+                    while (table[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+
+                    table[i] = value;
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            table = new long[capacity];
+            threshold = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the size of the batches: the readers submit a batch when it reaches {@link #batchRows()} rows or when
+ * it is older than the deadline, so a slow or small input still saves its data steadily.
+ * <p>
+ * In the adaptive mode the writers report every saved batch; the size follows the measured throughput
+ * (smoothed rows per second of a batch save) so that a batch is saved in about the target time.
+ * The size grows at most twice per saved batch, shrinks at once and stays within the limits given in megabytes of
+ * the batch columns ({@link IgraBatch#ROW_BYTES} per row).
+ */
+public final class BatchSizer {
+    private static final Logger log = LoggerFactory.getLogger(BatchSizer.class);
+
+    public static final String ADAPTIVE_PROPERTY = "loader.batch.adaptive";
+    public static final String MIN_MB_PROPERTY = "loader.batch.min.mb";
+    public static final String MAX_MB_PROPERTY = "loader.batch.max.mb";
+    public static final String TARGET_MS_PROPERTY = "loader.batch.target.ms";
+    public static final String DEADLINE_MS_PROPERTY = "loader.batch.deadline.ms";
+
+    private static final double SMOOTHING = 0.5;
+
+    private final boolean adaptive;
+    private final int minRows;
+    private final int maxRows;
+    private final double targetSeconds;
+    private final long deadlineNanos;
+    private volatile int batchRows;
+    private double rowsPerSecond;
+
+    private BatchSizer(boolean adaptive, int minRows, int maxRows, long targetMillis, long deadlineMillis) {
+        this.adaptive = adaptive;
+        this.minRows = minRows;
+        this.maxRows = maxRows;
+        this.targetSeconds = targetMillis / 1000.0;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        this.batchRows = adaptive ? minRows : maxRows;
+    }
+
+    /**
+     * @return the sizer of the batches with the given amount of rows and without a deadline
+     */
+    public static BatchSizer fixed(int rows) {
+        return new BatchSizer(false, rows, rows, 0, 0);
+    }
+
+    /**
+     * @param maxRows the row limit of the reusable batches; a bigger configured size is reduced to it
+     */
+    public static BatchSizer fromConfig(Properties config, int maxRows) {
+        boolean adaptive = Boolean.parseBoolean(config.getProperty(ADAPTIVE_PROPERTY, "true").trim());
+        int max = Math.min(maxRows, rows(config, MAX_MB_PROPERTY, "16"));
+        int min = Math.min(max, rows(config, MIN_MB_PROPERTY, "1"));
+        long target = Long.parseLong(config.getProperty(TARGET_MS_PROPERTY, "2000").trim());
+        long deadline = Long.parseLong(config.getProperty(DEADLINE_MS_PROPERTY, "10000").trim());
+
+        if (adaptive) {
+            log.info("Adaptive batch size: {} - {} rows, target save time = {} ms, deadline = {} ms",
+                    min, max, target, deadline);
+        } else {
+            log.info("Batch size: {} rows, deadline = {} ms", max, deadline);
+        }
+
+        return new BatchSizer(adaptive, Math.max(1, min), Math.max(1, max), target, deadline);
+    }
+
+    private static int rows(Properties config, String property, String defaultMegabytes) {
+        double megabytes = Double.parseDouble(config.getProperty(property, defaultMegabytes).trim());
+        return (int) Math.min(Integer.MAX_VALUE, megabytes * 1024 * 1024 / IgraBatch.ROW_BYTES);
+    }
+
+    /**
+     * @return the amount of rows after which a batch is submitted
+     */
+    public int batchRows() {
+        return batchRows;
+    }
+
+    public int maxRows() {
+        return maxRows;
+    }
+
+    /**
+     * @return the age (since the first sounding) after which a batch is submitted, 0 - no deadline
+     */
+    public long deadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * Adjusts the batch size by the time of a batch save (the statements and the commit).
+     */
+    public synchronized void recordSave(int rows, long nanos) {
+        if (!adaptive || rows <= 0 || nanos <= 0) {
+            return;
+        }
+
+        double rate = rows / (nanos / 1e9);
+        rowsPerSecond = rowsPerSecond == 0 ? rate : SMOOTHING * rate + (1 - SMOOTHING) * rowsPerSecond;
+
+        long desired = Math.round(rowsPerSecond * targetSeconds);
+        int current = batchRows;
+        int next = (int) Math.max(minRows, Math.min(maxRows, Math.min(desired, current * 2L)));
+
+        if (next != current) {
+            log.debug("Batch size: {} rows (save rate {} rows/sec)", next, Math.round(rowsPerSecond));
+            batchRows = next;
+        }
+    }
+}
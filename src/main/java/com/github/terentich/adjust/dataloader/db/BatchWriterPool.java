@@ -0,0 +1,218 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.io.IgraFileReader;
+import com.github.terentich.adjust.dataloader.metrics.LoaderMetrics;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Output stage of the loading pipeline: the parsers put ready batches into a bounded queue and
+ * the writer threads, each with its own {@link BatchWriter} (by default a database connection), save them.
+ * <p>
+ * {@link #save(IgraBatch)} blocks while the queue is full, so the amount of the parsed data in memory is limited by
+ * the queue size plus one batch per parser and per writer.
+ */
+public class BatchWriterPool implements IgraDataSink, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(BatchWriterPool.class);
+
+    public static final String WRITERS_PROPERTY = "loader.writers";
+    public static final String QUEUE_SIZE_PROPERTY = "loader.queue.size";
+
+    private static final int DEFAULT_WRITERS = 2;
+    private static final int DEFAULT_QUEUE_SIZE = 2;
+    private static final WriteTask STOP = new WriteTask(null);
+
+    private final BatchWriterFactory writerFactory;
+    private final BatchSizer batchSizer;
+    private final int writers;
+    private final int queueSize;
+    private final BlockingQueue<WriteTask> queue;
+    private final ExecutorService writerThreads;
+
+    public BatchWriterPool(Properties config) {
+        this(config, databaseWriters(config));
+    }
+
+    public BatchWriterPool(Properties config, BatchWriterFactory writerFactory) {
+        this(writerFactory,
+                Integer.parseInt(config.getProperty(WRITERS_PROPERTY, String.valueOf(DEFAULT_WRITERS))),
+                Integer.parseInt(config.getProperty(QUEUE_SIZE_PROPERTY, String.valueOf(DEFAULT_QUEUE_SIZE))),
+                BatchSizer.fromConfig(config, IgraFileReader.BATCH_SIZE));
+    }
+
+    public BatchWriterPool(BatchWriterFactory writerFactory, int writers, int queueSize) {
+        this(writerFactory, writers, queueSize, BatchSizer.fixed(IgraFileReader.BATCH_SIZE));
+    }
+
+    /**
+     * @param batchSizer receives the save time of every batch
+     */
+    public BatchWriterPool(BatchWriterFactory writerFactory, int writers, int queueSize, BatchSizer batchSizer) {
+        this.writerFactory = writerFactory;
+        this.batchSizer = batchSizer;
+        this.writers = writers;
+        this.queueSize = queueSize;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.writerThreads = Executors.newFixedThreadPool(writers);
+
+        for (int i = 0; i < writers; i++) {
+            writerThreads.execute(this::runWriter);
+        }
+
+        log.info("Started batch writers: {} (queue size: {})", writers, queueSize);
+    }
+
+    @Override
+    public CompletableFuture<Integer> save(IgraBatch batch) {
+        WriteTask task = new WriteTask(batch);
+
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.result.completeExceptionally(e);
+        }
+
+        return task.result;
+    }
+
+    /**
+     * @return the batch size controller which is fed by the writers of this pool
+     */
+    public BatchSizer batchSizer() {
+        return batchSizer;
+    }
+
+    /**
+     * @return the maximal amount of the batches which are queued or being saved at once
+     */
+    public int capacity() {
+        return writers + queueSize;
+    }
+
+    /**
+     * Saves the remaining batches and stops the writers. If the calling thread is interrupted, the writers are
+     * interrupted without saving the queued batches and the interrupt status is restored.
+     */
+    @Override
+    public void close() {
+        try {
+            for (int i = 0; i < writers; i++) {
+                queue.put(STOP);
+            }
+
+            writerThreads.shutdown();
+            writerThreads.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            log.warn("Interrupted while stopping batch writers, queued batches have not been saved");
+            writerThreads.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runWriter() {
+        BatchWriter writer = null;
+        Exception openError = null;
+
+        try {
+            writer = writerFactory.open();
+        } catch (Exception e) {
+            log.error("Unable to open batch writer", e);
+            openError = e;
+        }
+
+        try {
+            WriteTask task;
+
+            while ((task = queue.take()) != STOP) {
+                if (openError != null) {
+                    task.result.completeExceptionally(openError);
+                    continue;
+                }
+
+                try {
+                    long startTime = System.nanoTime();
+                    int savedRows = writer.write(task.batch);
+                    LoaderMetrics.get().addSavedBatch(savedRows, startTime);
+                    batchSizer.recordSave(savedRows, System.nanoTime() - startTime);
+                    task.result.complete(savedRows);
+                } catch (Exception e) {
+                    task.result.completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (Exception e) {
+                    log.error("Unable to close batch writer", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the factory of the writers saving the batches into the database, one connection per writer
+     */
+    public static BatchWriterFactory databaseWriters(Properties config) {
+        return () -> databaseWriter(config);
+    }
+
+    private static BatchWriter databaseWriter(Properties config) throws SQLException, IOException {
+        DbManager dbManager = new DbManager(config);
+        Connection connection = dbManager.createDatabaseConnection();
+
+        return new BatchWriter() {
+            @Override
+            public int write(IgraBatch batch) throws SQLException {
+                return dbManager.saveData(batch);
+            }
+
+            @Override
+            public void close() throws SQLException {
+                connection.close();
+            }
+        };
+    }
+
+    /**
+     * Saves the batches of one writer thread, so it does not need to be thread-safe.
+     */
+    public interface BatchWriter extends AutoCloseable {
+        /**
+         * @return the amount of the saved data rows
+         */
+        int write(IgraBatch batch) throws Exception;
+
+        @Override
+        void close() throws IOException, SQLException;
+    }
+
+    @FunctionalInterface
+    public interface BatchWriterFactory {
+        BatchWriter open() throws Exception;
+    }
+
+    private static final class WriteTask {
+        private final IgraBatch batch;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        private WriteTask(IgraBatch batch) {
+            this.batch = batch;
+        }
+    }
+}
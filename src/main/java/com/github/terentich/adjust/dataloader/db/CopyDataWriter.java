@@ -0,0 +1,145 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.model.AltitudeBucket;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Streams the data rows with {@code COPY ... FROM STDIN} through the driver's {@link org.postgresql.copy.CopyManager}.
+ * <p>
+ * The binary format (PGCOPY) is the fast one; the text format is kept as a fallback for servers or proxies
+ * which do not accept the binary format. The wide rows of a partitioned table are copied into the year partitions.
+ */
+public class CopyDataWriter implements IgraDataWriter {
+    private static final String IGRA_DATA_COLUMNS = " (id, year, month, day, hour, reltime, numlev, " +
+                                                    "p_src, np_src, lat, lon, lvltyp1, lvltyp2, etime, press, pflag, " +
+                                                    "gph, zflag, temp, tflag, rh, dpdp, wdir, wspd, thousands_altitude)";
+    private static final String SOUNDING_COLUMNS = "sounding (sounding_id, id, year, month, day, hour, reltime, " +
+                                                   "numlev, p_src, np_src, lat, lon)";
+    private static final String SOUNDING_LEVEL_COLUMNS = "sounding_level (sounding_id, lvltyp1, lvltyp2, etime, " +
+                                                         "press, pflag, gph, zflag, temp, tflag, rh, dpdp, wdir, wspd, " +
+                                                         "thousands_altitude)";
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final boolean binary;
+    private final boolean normalized;
+    private final PartitionLayout partitionLayout;
+
+    public CopyDataWriter(boolean binary, boolean normalized) {
+        this(binary, normalized, PartitionLayout.NONE);
+    }
+
+    public CopyDataWriter(boolean binary, boolean normalized, PartitionLayout partitionLayout) {
+        this.binary = binary;
+        this.normalized = normalized;
+        this.partitionLayout = partitionLayout;
+    }
+
+    @Override
+    public int write(Connection connection, IgraBatch batch) throws SQLException {
+        if (!normalized) {
+            int savedRows = 0;
+
+            for (Map.Entry<String, int[]> route : partitionLayout.route(batch).entrySet()) {
+                savedRows += copy(connection, route.getKey() + IGRA_DATA_COLUMNS, encoder -> {
+                    for (int headerIndex : route.getValue()) {
+                        IgraHeader header = batch.header(headerIndex);
+
+                        for (int row = batch.firstRow(headerIndex); row < batch.lastRow(headerIndex); row++) {
+                            encoder.startRow(25);
+                            addHeader(encoder, header);
+                            addRecord(encoder, batch, row);
+                            encoder.endRow();
+                        }
+                    }
+                });
+            }
+
+            return savedRows;
+        }
+
+        long[] soundingIds = SoundingIds.reserve(connection, batch.headerCount());
+
+        copy(connection, SOUNDING_COLUMNS, encoder -> {
+            for (int i = 0; i < batch.headerCount(); i++) {
+                encoder.startRow(12);
+                encoder.addLong(soundingIds[i]);
+                addHeader(encoder, batch.header(i));
+                encoder.endRow();
+            }
+        });
+
+        return copy(connection, SOUNDING_LEVEL_COLUMNS, encoder -> {
+            for (int row = 0; row < batch.size(); row++) {
+                encoder.startRow(15);
+                encoder.addLong(soundingIds[batch.headerIndex(row)]);
+                addRecord(encoder, batch, row);
+                encoder.endRow();
+            }
+        });
+    }
+
+    private int copy(Connection connection, String table, RowsWriter rowsWriter) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        String sql = "COPY " + table + " FROM STDIN (FORMAT " + (binary ? "binary" : "text") + ")";
+        PGCopyOutputStream copyStream = new PGCopyOutputStream(pgConnection, sql, BUFFER_SIZE);
+
+        try {
+            CopyEncoder encoder = CopyEncoder.create(binary, copyStream);
+            encoder.begin();
+            rowsWriter.write(encoder);
+            encoder.finish();
+            return (int) copyStream.endCopy();
+        } catch (IOException e) {
+            throw new SQLException("Unable to copy data into database", e);
+        } finally {
+            if (copyStream.isActive()) {
+                copyStream.cancelCopy();
+            }
+        }
+    }
+
+    private static void addHeader(CopyEncoder encoder, IgraHeader header) throws IOException {
+        encoder.addText(header.id());
+        encoder.addShort(header.year());
+        encoder.addShort(header.month());
+        encoder.addShort(header.day());
+        encoder.addShort(header.hour());
+        encoder.addShort(header.reltime());
+        encoder.addShort(header.numlev());
+        encoder.addText(header.psrc());
+        encoder.addText(header.npsrc());
+        encoder.addInt(header.lat());
+        encoder.addInt(header.lon());
+    }
+
+    private static void addRecord(CopyEncoder encoder, IgraBatch batch, int row) throws IOException {
+        encoder.addShort(batch.lvltyp1(row));
+        encoder.addShort(batch.lvltyp2(row));
+        encoder.addShort(batch.etime(row));
+        encoder.addInt(batch.press(row));
+        encoder.addText(batch.pflag(row));
+        encoder.addInt(batch.gph(row));
+        encoder.addText(batch.zflag(row));
+        encoder.addShort(batch.temp(row));
+        encoder.addText(batch.tflag(row));
+        encoder.addShort(batch.rh(row));
+        encoder.addShort(batch.dpdp(row));
+        encoder.addShort(batch.wdir(row));
+        encoder.addShort(batch.wspd(row));
+        encoder.addInt(AltitudeBucket.thousandsAltitude(batch.gph(row)));
+    }
+
+    @FunctionalInterface
+    private interface RowsWriter {
+        void write(CopyEncoder encoder) throws IOException;
+    }
+}
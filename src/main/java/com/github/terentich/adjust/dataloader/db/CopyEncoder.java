@@ -0,0 +1,176 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes rows for {@code COPY ... FROM STDIN} in the binary (PGCOPY) or the text format.
+ * <p>
+ * The binary format sends the numbers without text conversion, so the field sizes must follow
+ * the column types: {@code SMALLINT} - 2 bytes, {@code INTEGER} - 4 bytes, {@code BIGINT} - 8 bytes.
+ * Text values are expected to be ASCII.
+ */
+abstract class CopyEncoder {
+    protected final DataOutputStream out;
+
+    CopyEncoder(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    static CopyEncoder create(boolean binary, OutputStream out) {
+        return binary ? new Binary(out) : new Text(out);
+    }
+
+    abstract void begin() throws IOException;
+
+    abstract void startRow(int fieldCount) throws IOException;
+
+    abstract void addShort(int value) throws IOException;
+
+    abstract void addInt(int value) throws IOException;
+
+    abstract void addLong(long value) throws IOException;
+
+    abstract void addText(String value) throws IOException;
+
+    abstract void endRow() throws IOException;
+
+    abstract void finish() throws IOException;
+
+    private static final class Binary extends CopyEncoder {
+        private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+        Binary(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        void begin() throws IOException {
+            out.write(SIGNATURE);
+            out.writeInt(0); // flags
+            out.writeInt(0); // header extension length
+        }
+
+        @Override
+        void startRow(int fieldCount) throws IOException {
+            out.writeShort(fieldCount);
+        }
+
+        @Override
+        void addShort(int value) throws IOException {
+            if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                throw new IOException("Value is out of range for smallint: " + value);
+            }
+
+            out.writeInt(Short.BYTES);
+            out.writeShort(value);
+        }
+
+        @Override
+        void addInt(int value) throws IOException {
+            out.writeInt(Integer.BYTES);
+            out.writeInt(value);
+        }
+
+        @Override
+        void addLong(long value) throws IOException {
+            out.writeInt(Long.BYTES);
+            out.writeLong(value);
+        }
+
+        @Override
+        void addText(String value) throws IOException {
+            out.writeInt(value.length());
+            out.writeBytes(value);
+        }
+
+        @Override
+        void endRow() {
+        }
+
+        @Override
+        void finish() throws IOException {
+            out.writeShort(-1); // file trailer
+            out.flush();
+        }
+    }
+
+    private static final class Text extends CopyEncoder {
+        private boolean firstField;
+
+        Text(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        void begin() {
+        }
+
+        @Override
+        void startRow(int fieldCount) {
+            firstField = true;
+        }
+
+        @Override
+        void addShort(int value) throws IOException {
+            addInt(value);
+        }
+
+        @Override
+        void addInt(int value) throws IOException {
+            separate();
+            out.writeBytes(Integer.toString(value));
+        }
+
+        @Override
+        void addLong(long value) throws IOException {
+            separate();
+            out.writeBytes(Long.toString(value));
+        }
+
+        @Override
+        void addText(String value) throws IOException {
+            separate();
+
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+
+                switch (c) {
+                    case '\\':
+                        out.writeBytes("\\\\");
+                        break;
+                    case '\t':
+                        out.writeBytes("\\t");
+                        break;
+                    case '\n':
+                        out.writeBytes("\\n");
+                        break;
+                    case '\r':
+                        out.writeBytes("\\r");
+                        break;
+                    default:
+                        out.write(c);
+                }
+            }
+        }
+
+        @Override
+        void endRow() throws IOException {
+            out.write('\n');
+        }
+
+        @Override
+        void finish() throws IOException {
+            out.flush();
+        }
+
+        private void separate() throws IOException {
+            if (firstField) {
+                firstField = false;
+            } else {
+                out.write('\t');
+            }
+        }
+    }
+}
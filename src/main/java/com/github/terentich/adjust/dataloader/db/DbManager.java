@@ -1,16 +1,19 @@
 package com.github.terentich.adjust.dataloader.db;
 
+import com.github.terentich.adjust.dataloader.io.SoundingDedup;
+import com.github.terentich.adjust.dataloader.metrics.LoaderMetrics;
+import com.github.terentich.adjust.dataloader.model.AltitudeBucket;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
 import com.github.terentich.adjust.dataloader.model.IgraData;
-import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import com.github.terentich.adjust.dataloader.model.LoadCheckpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.net.URISyntaxException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -18,68 +21,315 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
-public class DbManager {
+/**
+ * Creates the database objects and saves the batches.
+ * <p>
+ * The load modes ({@code loader.load.mode}): {@code safe} - logged tables and a durable commit of every batch;
+ * {@code bulk} - a full rebuild without crash safety until it finishes: the data tables are {@code UNLOGGED},
+ * the batches are committed asynchronously, and {@link #finishLoad()} switches the tables to {@code LOGGED}
+ * and analyzes them.
+ * <p>
+ * With {@code loader.summary=true} every batch also merges its statistics into the summary table
+ * ({@link SummaryTable}) in the same transaction. With the deduplication ({@link SoundingDedup}) the fingerprints
+ * of the soundings of the wide and the partitioned schema are stored too ({@link LoadManifest}).
+ */
+public class DbManager implements IgraDataSink {
     private static final Logger log = LoggerFactory.getLogger(DbManager.class);
 
-    private static final String INSERT_IGRA_DATA_SQL = "INSERT INTO igra_data (\n" +
-                                                       "    id,\n" +
-                                                       "    year,\n" +
-                                                       "    month,\n" +
-                                                       "    day,\n" +
-                                                       "    hour,\n" +
-                                                       "    reltime,\n" +
-                                                       "    numlev,\n" +
-                                                       "    p_src,\n" +
-                                                       "    np_src,\n" +
-                                                       "    lat,\n" +
-                                                       "    lon,\n" +
-                                                       "    lvltyp1,\n" +
-                                                       "    lvltyp2,\n" +
-                                                       "    etime,\n" +
-                                                       "    press,\n" +
-                                                       "    pflag,\n" +
-                                                       "    gph,\n" +
-                                                       "    zflag,\n" +
-                                                       "    temp,\n" +
-                                                       "    tflag,\n" +
-                                                       "    rh,\n" +
-                                                       "    dpdp,\n" +
-                                                       "    wdir,\n" +
-                                                       "    wspd\n" +
-                                                       ")\n" +
-                                                       "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    public static final String WRITER_PROPERTY = "loader.writer";
+    public static final String SCHEMA_PROPERTY = "loader.schema";
+    public static final String WIDE_SCHEMA = "wide";
+    public static final String NORMALIZED_SCHEMA = "normalized";
+    public static final String PARTITIONED_SCHEMA = "partitioned";
+    public static final String LOAD_MODE_PROPERTY = "loader.load.mode";
+    public static final String SAFE_MODE = "safe";
+    public static final String BULK_MODE = "bulk";
+    // the session settings of the bulk load, e.g. loader.bulk.set.maintenance_work_mem=1GB
+    public static final String BULK_SETTINGS_PREFIX = "loader.bulk.set.";
+    public static final String SUMMARY_PROPERTY = "loader.summary";
+    private static final int SOUNDINGS_FETCH_SIZE = 50_000;
 
     private final Properties dbProperties;
+    private final boolean normalized;
+    private final PartitionLayout partitionLayout;
+    private final boolean bulkLoad;
+    private final boolean summary;
+    private final boolean fingerprints;
+    private final IgraDataWriter dataWriter;
     private Connection connection;
 
     public DbManager(Properties dbProperties) {
+        String schema = storageSchema(dbProperties.getProperty(SCHEMA_PROPERTY));
+
         this.dbProperties = dbProperties;
+        this.normalized = NORMALIZED_SCHEMA.equals(schema);
+        this.partitionLayout = PARTITIONED_SCHEMA.equals(schema)
+                ? PartitionLayout.fromConfig(dbProperties)
+                : PartitionLayout.NONE;
+        this.bulkLoad = isBulkLoad(dbProperties.getProperty(LOAD_MODE_PROPERTY));
+        this.summary = Boolean.parseBoolean(dbProperties.getProperty(SUMMARY_PROPERTY, "false").trim());
+        this.fingerprints = !normalized && SoundingDedup.isEnabled(dbProperties);
+        this.dataWriter = IgraDataWriter.create(dbProperties.getProperty(WRITER_PROPERTY), normalized,
+                partitionLayout);
     }
 
     public void createDatabase() {
+        if (partitionLayout.isPartitioned()) {
+            executeScript("/ddl-partitioned.sql");
+            executeStatements(partitionLayout.createPartitionsSql());
+        } else {
+            executeScript(normalized ? "/ddl-normalized.sql" : "/ddl.sql");
+        }
+
+        if (summary) {
+            executeScript("/ddl-summary.sql");
+        }
+
+        if (fingerprints) {
+            executeScript("/ddl-manifest.sql");
+        }
+
+        if (bulkLoad) {
+            executeStatements(dataTables()
+                    .stream()
+                    .map(table -> "ALTER TABLE " + table + " SET UNLOGGED")
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Creates the objects which would slow down the load: the indexes and constraints of the partitioned table.
+     * After the bulk load the data tables are switched to {@code LOGGED} and analyzed.
+     */
+    public void finishLoad() throws InterruptedException {
+        if (partitionLayout.isPartitioned()) {
+            new PartitionIndexBuilder(dbProperties, partitionLayout, bulkLoad).build();
+        } else if (bulkLoad) {
+            List<String> tables = dataTables();
+            Collections.reverse(tables);
+            List<String> statements = new ArrayList<>();
+
+            tables.forEach(table -> statements.add("ALTER TABLE " + table + " SET LOGGED"));
+            tables.forEach(table -> statements.add("ANALYZE " + table));
+
+            long startTime = System.currentTimeMillis();
+            executeStatements(statements);
+            log.info("Tables have been switched to LOGGED and analyzed: {} seconds",
+                    (System.currentTimeMillis() - startTime) / 1000);
+        }
+    }
+
+    public boolean isBulkLoad() {
+        return bulkLoad;
+    }
+
+    /**
+     * @return the tables which store the rows; a referencing table comes before the referenced one
+     */
+    private List<String> dataTables() {
+        if (partitionLayout.isPartitioned()) {
+            return partitionLayout.leafPartitions();
+        }
+
+        return normalized
+                ? new ArrayList<>(List.of("sounding_level", "sounding"))
+                : new ArrayList<>(List.of(PartitionLayout.TABLE));
+    }
+
+    /**
+     * Keeps the loaded data: the tables are created only if they do not exist yet, the load manifest is kept.
+     */
+    public void createDatabaseIfMissing() throws SQLException {
+        if (tableExists("igra_data")) {
+            log.info("Database already exists");
+
+            if (!columnExists("igra_data", AltitudeBucket.COLUMN)) {
+                addAltitudeColumn();
+            }
+
+            if (summary && !tableExists(SummaryTable.TABLE)) {
+                log.info("Building summary of the loaded data");
+                executeScript("/ddl-summary.sql");
+                SummaryTable.rebuild(connection);
+            }
+        } else {
+            createDatabase();
+        }
+
+        executeScript("/ddl-manifest.sql");
+    }
+
+    public Map<String, LoadCheckpoint> readLoadManifest() throws SQLException {
+        return LoadManifest.read(connection);
+    }
+
+    /**
+     * Deletes the checkpoints of the manifest with the paths starting with the prefix.
+     */
+    public int deleteLoadManifest(String pathPrefix) throws SQLException {
+        int deleted = LoadManifest.delete(connection, pathPrefix);
+
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Registers the soundings of the loaded data in the deduplication: the {@code sounding} table of
+     * the normalized schema, otherwise the stored fingerprints, so the soundings loaded without the deduplication
+     * are not known. The rows are streamed with a cursor.
+     *
+     * @return the amount of the soundings
+     */
+    public long readSoundings(SoundingDedup dedup) throws SQLException {
+        long soundings = 0;
+        connection.setAutoCommit(false);
+
+        if (!normalized) {
+            try {
+                return LoadManifest.readFingerprints(connection, dedup);
+            } finally {
+                connection.commit();
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(SOUNDINGS_FETCH_SIZE);
+
+            try (ResultSet rs = statement.executeQuery("SELECT id, year, month, day, hour, reltime FROM sounding")) {
+                while (rs.next()) {
+                    dedup.add(rs.getString(1), rs.getInt(2), rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6));
+                    soundings++;
+                }
+            }
+        } finally {
+            connection.commit();
+        }
+
+        return soundings;
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT to_regclass('" + table + "') IS NOT NULL")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private boolean columnExists(String table, String column) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT 1 FROM information_schema.columns " +
+                                                                "WHERE table_name = ? AND column_name = ?")) {
+            ps.setString(1, table);
+            ps.setString(2, column);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Adds the altitude bucket to the data loaded before it was stored; the normalized view is replaced
+     * to show it.
+     */
+    private void addAltitudeColumn() throws SQLException {
+        String table = normalized ? "sounding_level" : "igra_data";
+        List<String> statements = new ArrayList<>(List.of(
+                "ALTER TABLE " + table + " ADD COLUMN " + AltitudeBucket.COLUMN + " INTEGER",
+                "UPDATE " + table + " SET " + AltitudeBucket.COLUMN + " = " + AltitudeBucket.SQL,
+                "ALTER TABLE " + table + " ALTER COLUMN " + AltitudeBucket.COLUMN + " SET NOT NULL"));
+
+        if (normalized) {
+            try {
+                readScript("/ddl-normalized.sql").stream()
+                        .map(String::trim)
+                        .filter(sql -> sql.startsWith("CREATE VIEW"))
+                        .map(sql -> sql.replaceFirst("CREATE VIEW", "CREATE OR REPLACE VIEW"))
+                        .forEach(statements::add);
+            } catch (IOException e) {
+                throw new SQLException("Unable to read normalized schema", e);
+            }
+        }
+
+        log.info("Adding {} column to the loaded data", AltitudeBucket.COLUMN);
+        long startTime = System.currentTimeMillis();
+        execute(statements);
+        log.info("Column {} has been added: {} seconds", AltitudeBucket.COLUMN,
+                (System.currentTimeMillis() - startTime) / 1000);
+    }
+
+    private void executeScript(String resource) {
         try {
-            Statement statement = connection.createStatement();
-            Path ddlFile = Paths.get(Objects.requireNonNull(getClass().getResource("/ddl.sql")).toURI());
-            String ddlSql = Files
-                    .lines(ddlFile, StandardCharsets.UTF_8)
-                    .filter(line -> !line.trim().isBlank())
-                    .collect(Collectors.joining("\n"));
+            executeStatements(readScript(resource));
+        } catch (IOException e) {
+            log.error("Unable to create database", e);
+        }
+    }
+
+    private void executeStatements(List<String> statements) {
+        try {
+            execute(statements);
+        } catch (SQLException e) {
+            log.error("Unable to create database", e);
+        }
+    }
 
-            for (String sql : ddlSql.split(";")) {
+    void execute(List<String> statements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
                 log.info("Executing DDL SQL: \n{}", sql);
                 statement.execute(sql);
             }
-        } catch (SQLException | URISyntaxException | IOException e) {
-            log.error("Unable to create database", e);
         }
     }
 
+    static List<String> readScript(String resource) throws IOException {
+        try (InputStream input = Objects.requireNonNull(DbManager.class.getResourceAsStream(resource), resource);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String ddlSql = reader
+                    .lines()
+                    .filter(line -> !line.trim().isBlank())
+                    .collect(Collectors.joining("\n"));
+
+            return Arrays.asList(ddlSql.split(";"));
+        }
+    }
+
+    private static String storageSchema(String schema) {
+        if (schema == null || WIDE_SCHEMA.equalsIgnoreCase(schema.trim())) {
+            return WIDE_SCHEMA;
+        } else if (NORMALIZED_SCHEMA.equalsIgnoreCase(schema.trim())) {
+            return NORMALIZED_SCHEMA;
+        } else if (PARTITIONED_SCHEMA.equalsIgnoreCase(schema.trim())) {
+            return PARTITIONED_SCHEMA;
+        }
+
+        throw new IllegalArgumentException("Unknown storage schema: " + schema);
+    }
+
+    private static boolean isBulkLoad(String mode) {
+        if (mode == null || SAFE_MODE.equalsIgnoreCase(mode.trim())) {
+            return false;
+        } else if (BULK_MODE.equalsIgnoreCase(mode.trim())) {
+            return true;
+        }
+
+        throw new IllegalArgumentException("Unknown load mode: " + mode);
+    }
+
     public void showQueryResults(String sql) {
         try {
             Statement statement = connection.createStatement();
@@ -106,61 +356,74 @@ public class DbManager {
         // performance improvement
         dbProperties.put("reWriteBatchedInserts", "true");
         connection = DriverManager.getConnection(dbProperties.getProperty("url"), dbProperties);
+
+        if (bulkLoad) {
+            applyBulkSettings();
+        }
+
         return connection;
     }
 
+    private void applyBulkSettings() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String name : dbProperties.stringPropertyNames()) {
+                if (name.startsWith(BULK_SETTINGS_PREFIX)) {
+                    String setting = name.substring(BULK_SETTINGS_PREFIX.length());
+                    statement.execute("SET " + setting + " TO '" + dbProperties.getProperty(name).trim() + "'");
+                }
+            }
+        }
+    }
+
     public int saveData(List<IgraData> igraData) throws SQLException {
-        int recordsAmount = igraData
-                .stream()
-                .mapToInt(data -> data.getRecords().size())
-                .sum();
-        log.info("Saving batch data: rows = {}", recordsAmount);
+        return saveData(IgraBatch.of(igraData));
+    }
+
+    public int saveData(IgraBatch batch) throws SQLException {
+        log.info("Saving batch data: rows = {}", batch.size());
         connection.setAutoCommit(false);
 
-        PreparedStatement ps = connection.prepareStatement(INSERT_IGRA_DATA_SQL);
-        igraData.forEach(data -> createIngraDataSql(ps, data));
-        ps.executeBatch();
-
-        connection.commit();
-        return recordsAmount;
-    }
-
-    private void createIngraDataSql(PreparedStatement ps, IgraData data) {
-        IgraHeader header = data.getHeader();
-
-        data.getRecords()
-                .forEach(record -> {
-                    try {
-                        ps.setString(1, header.id());
-                        ps.setInt(2, header.year());
-                        ps.setInt(3, header.month());
-                        ps.setInt(4, header.day());
-                        ps.setInt(5, header.hour());
-                        ps.setInt(6, header.reltime());
-                        ps.setInt(7, header.numlev());
-                        ps.setString(8, header.psrc());
-                        ps.setString(9, header.npsrc());
-                        ps.setInt(10, header.lat());
-                        ps.setInt(11, header.lon());
-
-                        ps.setInt(12, record.lvltyp1());
-                        ps.setInt(13, record.lvltyp2());
-                        ps.setInt(14, record.etime());
-                        ps.setInt(15, record.press());
-                        ps.setString(16, record.pflag());
-                        ps.setInt(17, record.gph());
-                        ps.setString(18, record.zflag());
-                        ps.setInt(19, record.temp());
-                        ps.setString(20, record.tflag());
-                        ps.setInt(21, record.rh());
-                        ps.setInt(22, record.dpdp());
-                        ps.setInt(23, record.wdir());
-                        ps.setInt(24, record.wspd());
-
-                        ps.addBatch();
-                    } catch (SQLException e) {
-                        log.error("Unable to save data in database", e);
-                    }
-                });
-    }
-}
\ No newline at end of file
+        try {
+            if (bulkLoad) {
+                // the unlogged tables are lost on a crash anyway, the commit does not wait for the WAL flush
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET LOCAL synchronous_commit TO off");
+                }
+            }
+
+            LoaderMetrics metrics = LoaderMetrics.get();
+            long startTime = System.nanoTime();
+            int savedRows = dataWriter.write(connection, batch);
+            metrics.executeBatch().recordSince(startTime);
+
+            if (summary) {
+                SummaryTable.update(connection, batch);
+            }
+
+            if (fingerprints) {
+                LoadManifest.addFingerprints(connection, batch);
+            }
+
+            if (batch.checkpoint() != null) {
+                LoadManifest.update(connection, batch.checkpoint(), savedRows);
+            }
+
+            startTime = System.nanoTime();
+            connection.commit();
+            metrics.commit().recordSince(startTime);
+            return savedRows;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Integer> save(IgraBatch batch) {
+        try {
+            return CompletableFuture.completedFuture(saveData(batch));
+        } catch (SQLException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
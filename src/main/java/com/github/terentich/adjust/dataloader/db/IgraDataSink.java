@@ -0,0 +1,15 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Accepts the parsed batches for saving. The batch must not be modified by the caller after the submission.
+ */
+public interface IgraDataSink {
+    /**
+     * @return the future amount of the saved data rows; completed exceptionally if the batch has not been saved
+     */
+    CompletableFuture<Integer> save(IgraBatch batch);
+}
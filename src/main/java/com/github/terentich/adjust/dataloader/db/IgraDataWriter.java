@@ -0,0 +1,36 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Writes a batch of the parsed data into the database. Transaction handling is done by the caller.
+ */
+public interface IgraDataWriter {
+    String INSERT = "insert";
+    String COPY = "copy";
+    String COPY_TEXT = "copy-text";
+
+    /**
+     * @return the amount of the saved data rows
+     */
+    int write(Connection connection, IgraBatch batch) throws SQLException;
+
+    static IgraDataWriter create(String type, boolean normalized) {
+        return create(type, normalized, PartitionLayout.NONE);
+    }
+
+    static IgraDataWriter create(String type, boolean normalized, PartitionLayout partitionLayout) {
+        if (type == null || INSERT.equalsIgnoreCase(type.trim())) {
+            return new InsertDataWriter(normalized, partitionLayout);
+        } else if (COPY.equalsIgnoreCase(type.trim())) {
+            return new CopyDataWriter(true, normalized, partitionLayout);
+        } else if (COPY_TEXT.equalsIgnoreCase(type.trim())) {
+            return new CopyDataWriter(false, normalized, partitionLayout);
+        }
+
+        throw new IllegalArgumentException("Unknown data writer type: " + type);
+    }
+}
@@ -0,0 +1,177 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.model.AltitudeBucket;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Binds every data row to the batched {@code INSERT} statement: one wide {@code igra_data} row per level or,
+ * for the normalized schema, one {@code sounding} row per header and one {@code sounding_level} row per level.
+ * The wide rows of a partitioned table are inserted directly into the year partitions. Every level row carries
+ * its {@link AltitudeBucket}, so the Spark reader can partition its reads by the output directory.
+ */
+public class InsertDataWriter implements IgraDataWriter {
+    private static final String INSERT_IGRA_DATA_SQL = "INSERT INTO %s (\n" +
+                                                       "    id,\n" +
+                                                       "    year,\n" +
+                                                       "    month,\n" +
+                                                       "    day,\n" +
+                                                       "    hour,\n" +
+                                                       "    reltime,\n" +
+                                                       "    numlev,\n" +
+                                                       "    p_src,\n" +
+                                                       "    np_src,\n" +
+                                                       "    lat,\n" +
+                                                       "    lon,\n" +
+                                                       "    lvltyp1,\n" +
+                                                       "    lvltyp2,\n" +
+                                                       "    etime,\n" +
+                                                       "    press,\n" +
+                                                       "    pflag,\n" +
+                                                       "    gph,\n" +
+                                                       "    zflag,\n" +
+                                                       "    temp,\n" +
+                                                       "    tflag,\n" +
+                                                       "    rh,\n" +
+                                                       "    dpdp,\n" +
+                                                       "    wdir,\n" +
+                                                       "    wspd,\n" +
+                                                       "    thousands_altitude\n" +
+                                                       ")\n" +
+                                                       "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SOUNDING_SQL = "INSERT INTO sounding (sounding_id, id, year, month, day, " +
+                                                      "hour, reltime, numlev, p_src, np_src, lat, lon)\n" +
+                                                      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SOUNDING_LEVEL_SQL = "INSERT INTO sounding_level (sounding_id, lvltyp1, " +
+                                                            "lvltyp2, etime, press, pflag, gph, zflag, temp, tflag, " +
+                                                            "rh, dpdp, wdir, wspd, thousands_altitude)\n" +
+                                                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final boolean normalized;
+    private final PartitionLayout partitionLayout;
+
+    public InsertDataWriter() {
+        this(false);
+    }
+
+    public InsertDataWriter(boolean normalized) {
+        this(normalized, PartitionLayout.NONE);
+    }
+
+    public InsertDataWriter(boolean normalized, PartitionLayout partitionLayout) {
+        this.normalized = normalized;
+        this.partitionLayout = partitionLayout;
+    }
+
+    @Override
+    public int write(Connection connection, IgraBatch batch) throws SQLException {
+        if (!normalized) {
+            for (Map.Entry<String, int[]> route : partitionLayout.route(batch).entrySet()) {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        String.format(INSERT_IGRA_DATA_SQL, route.getKey()))) {
+                    for (int headerIndex : route.getValue()) {
+                        createIngraDataSql(ps, batch, headerIndex);
+                    }
+
+                    ps.executeBatch();
+                }
+            }
+
+            return batch.size();
+        }
+
+        long[] soundingIds = SoundingIds.reserve(connection, batch.headerCount());
+
+        try (PreparedStatement soundingPs = connection.prepareStatement(INSERT_SOUNDING_SQL);
+             PreparedStatement levelPs = connection.prepareStatement(INSERT_SOUNDING_LEVEL_SQL)) {
+            for (int i = 0; i < batch.headerCount(); i++) {
+                createSoundingSql(soundingPs, levelPs, soundingIds[i], batch, i);
+            }
+
+            soundingPs.executeBatch();
+            levelPs.executeBatch();
+        }
+
+        return batch.size();
+    }
+
+    public void createSoundingSql(PreparedStatement soundingPs, PreparedStatement levelPs, long soundingId,
+                                  IgraBatch batch, int headerIndex) throws SQLException {
+        IgraHeader header = batch.header(headerIndex);
+
+        soundingPs.setLong(1, soundingId);
+        soundingPs.setString(2, header.id());
+        soundingPs.setInt(3, header.year());
+        soundingPs.setInt(4, header.month());
+        soundingPs.setInt(5, header.day());
+        soundingPs.setInt(6, header.hour());
+        soundingPs.setInt(7, header.reltime());
+        soundingPs.setInt(8, header.numlev());
+        soundingPs.setString(9, header.psrc());
+        soundingPs.setString(10, header.npsrc());
+        soundingPs.setInt(11, header.lat());
+        soundingPs.setInt(12, header.lon());
+        soundingPs.addBatch();
+
+        for (int row = batch.firstRow(headerIndex); row < batch.lastRow(headerIndex); row++) {
+            levelPs.setLong(1, soundingId);
+            levelPs.setInt(2, batch.lvltyp1(row));
+            levelPs.setInt(3, batch.lvltyp2(row));
+            levelPs.setInt(4, batch.etime(row));
+            levelPs.setInt(5, batch.press(row));
+            levelPs.setString(6, batch.pflag(row));
+            levelPs.setInt(7, batch.gph(row));
+            levelPs.setString(8, batch.zflag(row));
+            levelPs.setInt(9, batch.temp(row));
+            levelPs.setString(10, batch.tflag(row));
+            levelPs.setInt(11, batch.rh(row));
+            levelPs.setInt(12, batch.dpdp(row));
+            levelPs.setInt(13, batch.wdir(row));
+            levelPs.setInt(14, batch.wspd(row));
+            levelPs.setInt(15, AltitudeBucket.thousandsAltitude(batch.gph(row)));
+            levelPs.addBatch();
+        }
+    }
+
+    public void createIngraDataSql(PreparedStatement ps, IgraBatch batch, int headerIndex) throws SQLException {
+        IgraHeader header = batch.header(headerIndex);
+
+        for (int row = batch.firstRow(headerIndex); row < batch.lastRow(headerIndex); row++) {
+            ps.setString(1, header.id());
+            ps.setInt(2, header.year());
+            ps.setInt(3, header.month());
+            ps.setInt(4, header.day());
+            ps.setInt(5, header.hour());
+            ps.setInt(6, header.reltime());
+            ps.setInt(7, header.numlev());
+            ps.setString(8, header.psrc());
+            ps.setString(9, header.npsrc());
+            ps.setInt(10, header.lat());
+            ps.setInt(11, header.lon());
+
+            ps.setInt(12, batch.lvltyp1(row));
+            ps.setInt(13, batch.lvltyp2(row));
+            ps.setInt(14, batch.etime(row));
+            ps.setInt(15, batch.press(row));
+            ps.setString(16, batch.pflag(row));
+            ps.setInt(17, batch.gph(row));
+            ps.setString(18, batch.zflag(row));
+            ps.setInt(19, batch.temp(row));
+            ps.setString(20, batch.tflag(row));
+            ps.setInt(21, batch.rh(row));
+            ps.setInt(22, batch.dpdp(row));
+            ps.setInt(23, batch.wdir(row));
+            ps.setInt(24, batch.wspd(row));
+            ps.setInt(25, AltitudeBucket.thousandsAltitude(batch.gph(row)));
+
+            ps.addBatch();
+        }
+    }
+}
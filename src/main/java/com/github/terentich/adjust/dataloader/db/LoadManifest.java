@@ -0,0 +1,138 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.io.SoundingDedup;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.LoadCheckpoint;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Access to the {@code load_manifest} table which keeps the last committed checkpoint of every input file
+ * and to the {@code load_fingerprint} table which keeps the {@link SoundingDedup} fingerprints of the loaded
+ * soundings, so the next runs do not read the data tables for the deduplication.
+ */
+public final class LoadManifest {
+    private static final String SELECT_MANIFEST_SQL = "SELECT path, size, checksum, soundings, saved_lines, completed " +
+                                                      "FROM load_manifest";
+
+    private static final String UPSERT_MANIFEST_SQL = "INSERT INTO load_manifest (path, size, checksum, soundings, " +
+                                                      "saved_lines, completed, updated_at)\n" +
+                                                      "VALUES (?, ?, ?, ?, ?, ?, now())\n" +
+                                                      "ON CONFLICT (path) DO UPDATE SET\n" +
+                                                      "    size = EXCLUDED.size,\n" +
+                                                      "    checksum = EXCLUDED.checksum,\n" +
+                                                      "    soundings = EXCLUDED.soundings,\n" +
+                                                      "    saved_lines = EXCLUDED.saved_lines,\n" +
+                                                      "    completed = EXCLUDED.completed,\n" +
+                                                      "    updated_at = EXCLUDED.updated_at";
+
+    private static final String DELETE_MANIFEST_SQL = "DELETE FROM load_manifest WHERE substr(path, 1, ?) = ?";
+
+    private static final String SELECT_FINGERPRINTS_SQL = "SELECT fingerprint FROM load_fingerprint";
+    private static final String INSERT_FINGERPRINTS_SQL = "INSERT INTO load_fingerprint (fingerprint) " +
+                                                          "SELECT unnest(?::bigint[])\n" +
+                                                          "ON CONFLICT (fingerprint) DO NOTHING";
+    private static final int FINGERPRINTS_FETCH_SIZE = 100_000;
+
+    private LoadManifest() {
+    }
+
+    public static Map<String, LoadCheckpoint> read(Connection connection) throws SQLException {
+        Map<String, LoadCheckpoint> checkpoints = new HashMap<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(SELECT_MANIFEST_SQL)) {
+            while (rs.next()) {
+                LoadCheckpoint checkpoint = new LoadCheckpoint(rs.getString(1), rs.getLong(2), rs.getString(3),
+                        rs.getInt(4), rs.getInt(5), rs.getBoolean(6));
+                checkpoints.put(checkpoint.path(), checkpoint);
+            }
+        }
+
+        return checkpoints;
+    }
+
+    /**
+     * Stores the checkpoint in the current transaction of the connection.
+     *
+     * @param savedRows the rows saved in this transaction in addition to {@link LoadCheckpoint#savedLines()}
+     */
+    static void update(Connection connection, LoadCheckpoint checkpoint, int savedRows) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(UPSERT_MANIFEST_SQL)) {
+            ps.setString(1, checkpoint.path());
+            ps.setLong(2, checkpoint.size());
+            ps.setString(3, checkpoint.checksum());
+            ps.setInt(4, checkpoint.soundings());
+            ps.setInt(5, checkpoint.savedLines() + savedRows);
+            ps.setBoolean(6, checkpoint.completed());
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the checkpoints with the paths starting with the prefix.
+     *
+     * @return the amount of the deleted checkpoints
+     */
+    static int delete(Connection connection, String pathPrefix) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(DELETE_MANIFEST_SQL)) {
+            ps.setInt(1, pathPrefix.length());
+            ps.setString(2, pathPrefix);
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Registers the stored fingerprints in the deduplication; the rows are streamed with a cursor, the connection
+     * must not be in the auto-commit mode.
+     *
+     * @return the amount of the fingerprints
+     */
+    static long readFingerprints(Connection connection, SoundingDedup dedup) throws SQLException {
+        long fingerprints = 0;
+
+        try (Statement statement = connection.createStatement()) {
+            statement.setFetchSize(FINGERPRINTS_FETCH_SIZE);
+
+            try (ResultSet rs = statement.executeQuery(SELECT_FINGERPRINTS_SQL)) {
+                while (rs.next()) {
+                    dedup.addFingerprint(rs.getLong(1));
+                    fingerprints++;
+                }
+            }
+        }
+
+        return fingerprints;
+    }
+
+    /**
+     * Stores the fingerprints of the identified soundings of the batch in the current transaction
+     * of the connection; a fingerprint stored before is kept.
+     */
+    static void addFingerprints(Connection connection, IgraBatch batch) throws SQLException {
+        Long[] fingerprints = new Long[batch.headerCount()];
+        int size = 0;
+
+        for (int i = 0; i < batch.headerCount(); i++) {
+            if (SoundingDedup.isIdentified(batch.header(i))) {
+                fingerprints[size++] = SoundingDedup.fingerprint(batch.header(i));
+            }
+        }
+
+        if (size == 0) {
+            return;
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_FINGERPRINTS_SQL)) {
+            ps.setArray(1, connection.createArrayOf("bigint", Arrays.copyOf(fingerprints, size)));
+            ps.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the indexes and constraints of the partitioned {@code igra_data} after the load.
+ * <p>
+ * The statements of {@code ddl-partitioned-indexes.sql} run for every leaf partition ({@code ${partition}}),
+ * the partitions in parallel, each on its own connection. Then {@code ddl-partitioned-parent.sql} creates the
+ * indexes of the parent table, which only attach the already built partition indexes.
+ * <p>
+ * After the bulk load every partition is switched to {@code LOGGED} before its indexes are built, so the indexes
+ * are not rebuilt by the switch, and analyzed after them.
+ */
+public class PartitionIndexBuilder {
+    private static final Logger log = LoggerFactory.getLogger(PartitionIndexBuilder.class);
+
+    public static final String PARALLELISM_PROPERTY = "loader.index.parallelism";
+
+    private static final String PARTITION_PLACEHOLDER = "${partition}";
+
+    private final Properties dbProperties;
+    private final PartitionLayout partitionLayout;
+    private final boolean bulkLoad;
+    private final int parallelism;
+
+    public PartitionIndexBuilder(Properties dbProperties, PartitionLayout partitionLayout, boolean bulkLoad) {
+        this.dbProperties = dbProperties;
+        this.partitionLayout = partitionLayout;
+        this.bulkLoad = bulkLoad;
+        this.parallelism = Integer.parseInt(dbProperties.getProperty(PARALLELISM_PROPERTY,
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+    }
+
+    public void build() throws InterruptedException {
+        List<String> partitionSql;
+        List<String> parentSql;
+
+        try {
+            partitionSql = DbManager.readScript("/ddl-partitioned-indexes.sql");
+            parentSql = DbManager.readScript("/ddl-partitioned-parent.sql");
+        } catch (IOException e) {
+            log.error("Unable to read index scripts", e);
+            return;
+        }
+
+        List<String> partitions = partitionLayout.leafPartitions();
+        AtomicInteger failedPartitions = new AtomicInteger();
+        ExecutorService threadPool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism,
+                partitions.size())));
+        long startTime = System.currentTimeMillis();
+
+        try {
+            for (String partition : partitions) {
+                List<String> statements = partitionSql
+                        .stream()
+                        .map(sql -> sql.replace(PARTITION_PLACEHOLDER, partition))
+                        .collect(Collectors.toCollection(ArrayList::new));
+
+                if (bulkLoad) {
+                    statements.add(0, "ALTER TABLE " + partition + " SET LOGGED");
+                    statements.add("ANALYZE " + partition);
+                }
+
+                threadPool.execute(() -> {
+                    if (!execute(statements)) {
+                        failedPartitions.incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            threadPool.shutdown();
+            threadPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+
+        if (failedPartitions.get() > 0) {
+            log.error("Indexes have not been built for {} of {} partitions", failedPartitions.get(),
+                    partitions.size());
+            return;
+        }
+
+        if (execute(parentSql)) {
+            log.info("Indexes have been built for {} partitions: {} seconds", partitions.size(),
+                    (System.currentTimeMillis() - startTime) / 1000);
+        }
+    }
+
+    private boolean execute(List<String> statements) {
+        DbManager dbManager = new DbManager(dbProperties);
+
+        try (Connection ignored = dbManager.createDatabaseConnection()) {
+            dbManager.execute(statements);
+            return true;
+        } catch (SQLException | IOException e) {
+            log.error("Unable to build indexes: {}", statements, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The partitions of {@code igra_data}: ranges of years of the same length, optionally sub-partitioned by the hash
+ * of the station id, and the default partition for the years out of the ranges.
+ * <p>
+ * A batch is routed to the year partitions by the loader; the hash sub-partition is chosen by the database.
+ */
+public final class PartitionLayout {
+    public static final String FROM_YEAR_PROPERTY = "loader.partition.years.from";
+    public static final String TO_YEAR_PROPERTY = "loader.partition.years.to";
+    public static final String YEARS_STEP_PROPERTY = "loader.partition.years.step";
+    public static final String STATION_HASHES_PROPERTY = "loader.partition.station.hashes";
+
+    public static final String TABLE = "igra_data";
+    private static final String DEFAULT_PARTITION = TABLE + "_default";
+
+    /**
+     * The plain table: every batch goes to {@code igra_data}.
+     */
+    public static final PartitionLayout NONE = new PartitionLayout(0, 0, 0, 0);
+
+    private final int fromYear;
+    private final int toYear;
+    private final int yearsStep;
+    private final int stationHashes;
+
+    private PartitionLayout(int fromYear, int toYear, int yearsStep, int stationHashes) {
+        this.fromYear = fromYear;
+        this.toYear = toYear;
+        this.yearsStep = yearsStep;
+        this.stationHashes = stationHashes;
+    }
+
+    public static PartitionLayout fromConfig(Properties config) {
+        int fromYear = Integer.parseInt(config.getProperty(FROM_YEAR_PROPERTY, "1900"));
+        int toYear = Integer.parseInt(config.getProperty(TO_YEAR_PROPERTY, "2030"));
+        int yearsStep = Integer.parseInt(config.getProperty(YEARS_STEP_PROPERTY, "10"));
+        int stationHashes = Integer.parseInt(config.getProperty(STATION_HASHES_PROPERTY, "0"));
+
+        if (yearsStep <= 0 || toYear <= fromYear || stationHashes < 0) {
+            throw new IllegalArgumentException(String.format("Invalid partitions: years %d-%d by %d, hashes %d",
+                    fromYear, toYear, yearsStep, stationHashes));
+        }
+
+        return new PartitionLayout(fromYear, toYear, yearsStep, stationHashes);
+    }
+
+    public boolean isPartitioned() {
+        return yearsStep > 0;
+    }
+
+    /**
+     * @return the table which receives the rows of the year
+     */
+    public String table(int year) {
+        if (!isPartitioned()) {
+            return TABLE;
+        } else if (year < fromYear || year >= toYear) {
+            return DEFAULT_PARTITION;
+        }
+
+        return yearPartition(fromYear + (year - fromYear) / yearsStep * yearsStep);
+    }
+
+    /**
+     * Groups the soundings of the batch by their target table.
+     *
+     * @return the header indexes by the table, in the batch order
+     */
+    public Map<String, int[]> route(IgraBatch batch) {
+        Map<String, int[]> routes = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+
+        for (int i = 0; i < batch.headerCount(); i++) {
+            String table = table(batch.header(i).year());
+            int count = counts.getOrDefault(table, 0);
+            int[] headers = routes.computeIfAbsent(table, key -> new int[batch.headerCount()]);
+            headers[count] = i;
+            counts.put(table, count + 1);
+        }
+
+        routes.replaceAll((table, headers) -> Arrays.copyOf(headers, counts.get(table)));
+        return routes;
+    }
+
+    /**
+     * @return the statements creating the partitions of the partitioned {@code igra_data}
+     */
+    public List<String> createPartitionsSql() {
+        List<String> sql = new ArrayList<>();
+
+        for (int year = fromYear; year < toYear; year += yearsStep) {
+            String partition = yearPartition(year);
+            sql.add(String.format("CREATE TABLE %s PARTITION OF %s FOR VALUES FROM (%d) TO (%d)%s",
+                    partition, TABLE, year, Math.min(year + yearsStep, toYear),
+                    stationHashes > 0 ? " PARTITION BY HASH (id)" : ""));
+
+            for (int i = 0; i < stationHashes; i++) {
+                sql.add(String.format("CREATE TABLE %s_h%d PARTITION OF %s FOR VALUES WITH (MODULUS %d, REMAINDER %d)",
+                        partition, i, partition, stationHashes, i));
+            }
+        }
+
+        sql.add(String.format("CREATE TABLE %s PARTITION OF %s DEFAULT", DEFAULT_PARTITION, TABLE));
+        return sql;
+    }
+
+    /**
+     * @return the partitions which store the rows
+     */
+    public List<String> leafPartitions() {
+        List<String> partitions = new ArrayList<>();
+
+        for (int year = fromYear; year < toYear; year += yearsStep) {
+            if (stationHashes == 0) {
+                partitions.add(yearPartition(year));
+            }
+
+            for (int i = 0; i < stationHashes; i++) {
+                partitions.add(yearPartition(year) + "_h" + i);
+            }
+        }
+
+        partitions.add(DEFAULT_PARTITION);
+        return partitions;
+    }
+
+    private static String yearPartition(int firstYear) {
+        return TABLE + "_y" + firstYear;
+    }
+}
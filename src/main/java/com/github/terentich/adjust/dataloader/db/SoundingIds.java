@@ -0,0 +1,33 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reserves the keys of the {@code sounding} table in one round trip, so the levels of a batch can reference
+ * their soundings without reading generated keys back row by row.
+ */
+final class SoundingIds {
+    private static final String RESERVE_IDS_SQL = "SELECT nextval('sounding_sounding_id_seq') FROM generate_series(1, ?)";
+
+    private SoundingIds() {
+    }
+
+    static long[] reserve(Connection connection, int count) throws SQLException {
+        long[] ids = new long[count];
+
+        try (PreparedStatement ps = connection.prepareStatement(RESERVE_IDS_SQL)) {
+            ps.setInt(1, count);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                for (int i = 0; i < count && rs.next(); i++) {
+                    ids[i] = rs.getLong(1);
+                }
+            }
+        }
+
+        return ids;
+    }
+}
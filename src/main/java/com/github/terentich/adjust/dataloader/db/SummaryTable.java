@@ -0,0 +1,117 @@
+package com.github.terentich.adjust.dataloader.db;
+
+import com.github.terentich.adjust.dataloader.model.AltitudeBucket;
+import com.github.terentich.adjust.dataloader.model.AltitudeSummary;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+/**
+ * Access to the {@code igra_summary} table: the {@link AltitudeSummary} statistics by station, year, month and
+ * altitude bucket, the means are in the {@code igra_summary_stats} view.
+ * <p>
+ * The summary of a batch is merged into the table in the transaction of the batch, so the table always matches
+ * the committed data, also in the incremental load and the spool replay. The rows are upserted in the key order,
+ * so the writers updating the same groups wait for each other but do not deadlock.
+ */
+public final class SummaryTable {
+    public static final String TABLE = "igra_summary";
+
+    private static final String[] VALUES = {"temp", "rh", "wspd"};
+    private static final String UPSERT_SUMMARY_SQL = upsertSql();
+
+    private SummaryTable() {
+    }
+
+    /**
+     * Merges the summary of the batch into the table in the current transaction of the connection.
+     */
+    static void update(Connection connection, IgraBatch batch) throws SQLException {
+        AltitudeSummary summary = AltitudeSummary.of(batch);
+
+        if (summary.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(UPSERT_SUMMARY_SQL)) {
+            for (AltitudeSummary.Key key : summary.keys()) {
+                AltitudeSummary.Stats stats = summary.stats(key);
+                int index = 1;
+
+                ps.setString(index++, key.id());
+                ps.setInt(index++, key.year());
+                ps.setInt(index++, key.month());
+                ps.setInt(index++, key.thousandsAltitude());
+                ps.setLong(index++, stats.levels());
+
+                for (int value = 0; value < VALUES.length; value++) {
+                    ps.setLong(index++, stats.count(value));
+
+                    if (stats.count(value) == 0) {
+                        ps.setNull(index++, Types.INTEGER);
+                        ps.setNull(index++, Types.INTEGER);
+                    } else {
+                        ps.setInt(index++, stats.min(value));
+                        ps.setInt(index++, stats.max(value));
+                    }
+
+                    ps.setLong(index++, stats.sum(value));
+                }
+
+                ps.addBatch();
+            }
+
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Fills the empty summary table from the data table, for the data loaded before the summary was enabled.
+     */
+    static void rebuild(Connection connection) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO " + TABLE + " SELECT id, year, month, ")
+                .append(AltitudeBucket.COLUMN).append(", count(*)");
+
+        for (String value : VALUES) {
+            String present = value + " NOT IN (" + AltitudeSummary.MISSING + ", " + AltitudeSummary.REMOVED + ")";
+            sql.append(", count(*) FILTER (WHERE ").append(present).append(")")
+                    .append(", min(").append(value).append(") FILTER (WHERE ").append(present).append(")")
+                    .append(", max(").append(value).append(") FILTER (WHERE ").append(present).append(")")
+                    .append(", coalesce(sum(").append(value).append(") FILTER (WHERE ").append(present).append("), 0)");
+        }
+
+        sql.append(" FROM igra_data GROUP BY 1, 2, 3, 4");
+
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql.toString());
+        }
+    }
+
+    private static String upsertSql() {
+        StringBuilder columns = new StringBuilder("id, year, month, thousands_altitude, levels");
+        StringBuilder updates = new StringBuilder("    levels = " + TABLE + ".levels + EXCLUDED.levels");
+        int parameters = 5;
+
+        for (String value : VALUES) {
+            columns.append(", ").append(value).append("_count, ").append(value).append("_min, ")
+                    .append(value).append("_max, ").append(value).append("_sum");
+            updates.append(",\n    ").append(value).append("_count = ").append(TABLE).append('.').append(value)
+                    .append("_count + EXCLUDED.").append(value).append("_count")
+                    .append(",\n    ").append(value).append("_min = LEAST(").append(TABLE).append('.').append(value)
+                    .append("_min, EXCLUDED.").append(value).append("_min)")
+                    .append(",\n    ").append(value).append("_max = GREATEST(").append(TABLE).append('.')
+                    .append(value).append("_max, EXCLUDED.").append(value).append("_max)")
+                    .append(",\n    ").append(value).append("_sum = ").append(TABLE).append('.').append(value)
+                    .append("_sum + EXCLUDED.").append(value).append("_sum");
+            parameters += 4;
+        }
+
+        return "INSERT INTO " + TABLE + " (" + columns + ")\n" +
+               "VALUES (" + "?, ".repeat(parameters - 1) + "?)\n" +
+               "ON CONFLICT (id, year, month, thousands_altitude) DO UPDATE SET\n" + updates;
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A mutable {@link CharSequence} view over a slice of an ASCII byte array.
+ */
+public final class AsciiLine implements CharSequence {
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    public AsciiLine() {
+        this(new byte[0], 0, 0);
+    }
+
+    public AsciiLine(byte[] bytes, int offset, int length) {
+        set(bytes, offset, length);
+    }
+
+    public void set(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+
+        return (char) (bytes[offset + index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+
+        return new String(bytes, offset + start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits an ASCII stream into lines without charset decoding and without a {@code String} per line.
+ * <p>
+ * The returned {@link AsciiLine} is a view over the internal buffer and is valid only until the next call
+ * of {@link #readLine()}. Line terminators are the same as in {@link java.io.BufferedReader#readLine()}:
+ * {@code \n}, {@code \r} or {@code \r\n}.
+ */
+public class AsciiLineReader implements IgraLineReader {
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream stream;
+    private final AsciiLine line = new AsciiLine();
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean skipLineFeed;
+    private boolean endOfStream;
+
+    public AsciiLineReader(InputStream stream) {
+        this(stream, DEFAULT_BUFFER_SIZE);
+    }
+
+    public AsciiLineReader(InputStream stream, int bufferSize) {
+        this.stream = stream;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads the lines of the array range without copying it.
+     */
+    public AsciiLineReader(byte[] bytes, int offset, int length) {
+        this.stream = null;
+        this.buffer = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+        this.endOfStream = true;
+    }
+
+    @Override
+    public AsciiLine readLine() throws IOException {
+        if (skipLineFeed) {
+            skipLineFeed = false;
+
+            if ((position < limit || fill()) && buffer[position] == '\n') {
+                position++;
+            }
+        }
+
+        int i = position;
+
+        while (true) {
+            for (; i < limit; i++) {
+                byte b = buffer[i];
+
+                if (b == '\n' || b == '\r') {
+                    line.set(buffer, position, i - position);
+                    position = i + 1;
+                    skipLineFeed = b == '\r';
+                    return line;
+                }
+            }
+
+            int scanned = i - position;
+
+            if (!fill()) {
+                if (position == limit) {
+                    return null;
+                }
+
+                line.set(buffer, position, limit - position);
+                position = limit;
+                return line;
+            }
+
+            i = position + scanned;
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the beginning of the buffer (growing it if it is full) and reads more data.
+     *
+     * @return {@code false} if the end of the stream has been reached and no new bytes are available
+     */
+    private boolean fill() throws IOException {
+        if (endOfStream) {
+            return false;
+        }
+
+        int remaining = limit - position;
+
+        if (remaining == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        } else if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        }
+
+        position = 0;
+        limit = remaining;
+
+        int read;
+        do {
+            read = stream.read(buffer, limit, buffer.length - limit);
+        } while (read == 0);
+
+        if (read < 0) {
+            endOfStream = true;
+            return false;
+        }
+
+        limit += read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A mutable {@link CharSequence} view over a slice of an ASCII byte buffer, e.g. a memory-mapped file.
+ * The bytes are read with the absolute {@link ByteBuffer#get(int)}, the buffer position is not used.
+ */
+public final class ByteBufferLine implements CharSequence {
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    public void set(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+
+        return decode(offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return decode(offset, length);
+    }
+
+    private String decode(int from, int count) {
+        byte[] bytes = new byte[count];
+
+        for (int i = 0; i < count; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Splits the remaining bytes of an ASCII buffer into lines without copying them; the line terminators are the same
+ * as in {@link AsciiLineReader}. The returned line is valid only until the next call of {@link #readLine()}.
+ */
+public class ByteBufferLineReader implements IgraLineReader {
+    private final ByteBuffer buffer;
+    private final ByteBufferLine line = new ByteBufferLine();
+    private final int limit;
+    private int position;
+
+    public ByteBufferLineReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    @Override
+    public ByteBufferLine readLine() {
+        if (position >= limit) {
+            return null;
+        }
+
+        int i = position;
+
+        while (i < limit) {
+            byte b = buffer.get(i);
+
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+
+            i++;
+        }
+
+        line.set(buffer, position, i - position);
+
+        if (i < limit && buffer.get(i) == '\r' && i + 1 < limit && buffer.get(i + 1) == '\n') {
+            i++;
+        }
+
+        position = i + 1;
+        return line;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import com.github.terentich.adjust.dataloader.metrics.LoaderMetrics;
+
+/**
+ * Line counters of a processed input file (or of a part of it).
+ * <p>
+ * The counters are local to the parsing thread; {@link #publish()} adds the lines counted since the previous call
+ * to the {@link LoaderMetrics}.
+ */
+public final class FileStats {
+    private static final LineError[] ERRORS = LineError.values();
+
+    private int totalLineCount;
+    private int headerLineCount;
+    private int failedLineCount;
+    private int duplicateSoundingCount;
+    private int duplicateLineCount;
+    private int publishedLineCount;
+    private int publishedFailedLineCount;
+    private final int[] errorCounts = new int[ERRORS.length];
+    private final int[] publishedErrorCounts = new int[ERRORS.length];
+
+    void addHeaderLine() {
+        totalLineCount++;
+        headerLineCount++;
+    }
+
+    void addDataLine() {
+        totalLineCount++;
+    }
+
+    void addFailedLine(LineError error) {
+        totalLineCount++;
+        failedLineCount++;
+        errorCounts[error.ordinal()]++;
+    }
+
+    /**
+     * Counts the soundings skipped as already loaded and their data lines, they are published at once.
+     */
+    void addDuplicates(int soundings, int lines) {
+        duplicateSoundingCount += soundings;
+        duplicateLineCount += lines;
+        LoaderMetrics.get().addDuplicateSoundings(soundings, lines);
+    }
+
+    public void add(FileStats other) {
+        totalLineCount += other.totalLineCount;
+        headerLineCount += other.headerLineCount;
+        failedLineCount += other.failedLineCount;
+        duplicateSoundingCount += other.duplicateSoundingCount;
+        duplicateLineCount += other.duplicateLineCount;
+        publishedLineCount += other.publishedLineCount;
+        publishedFailedLineCount += other.publishedFailedLineCount;
+
+        for (int i = 0; i < ERRORS.length; i++) {
+            errorCounts[i] += other.errorCounts[i];
+            publishedErrorCounts[i] += other.publishedErrorCounts[i];
+        }
+    }
+
+    void publish() {
+        LoaderMetrics.get().addLines(totalLineCount - publishedLineCount,
+                failedLineCount - publishedFailedLineCount);
+        publishedLineCount = totalLineCount;
+        publishedFailedLineCount = failedLineCount;
+
+        for (int i = 0; i < ERRORS.length; i++) {
+            if (errorCounts[i] != publishedErrorCounts[i]) {
+                LoaderMetrics.get().addFailedLines(ERRORS[i].description(), errorCounts[i] - publishedErrorCounts[i]);
+                publishedErrorCounts[i] = errorCounts[i];
+            }
+        }
+    }
+
+    public int totalLineCount() {
+        return totalLineCount;
+    }
+
+    public int headerLineCount() {
+        return headerLineCount;
+    }
+
+    public int failedLineCount() {
+        return failedLineCount;
+    }
+
+    public int duplicateSoundingCount() {
+        return duplicateSoundingCount;
+    }
+
+    public int duplicateLineCount() {
+        return duplicateLineCount;
+    }
+
+    public int failedLineCount(LineError error) {
+        return errorCounts[error.ordinal()];
+    }
+
+    /**
+     * @return the failed lines by the reason, e.g. {@code "invalid data line: 10, values out of range: 2"}
+     */
+    public String failedLineReasons() {
+        StringBuilder reasons = new StringBuilder();
+
+        for (LineError error : ERRORS) {
+            if (errorCounts[error.ordinal()] > 0) {
+                if (reasons.length() > 0) {
+                    reasons.append(", ");
+                }
+
+                reasons.append(error.description()).append(": ").append(errorCounts[error.ordinal()]);
+            }
+        }
+
+        return reasons.toString();
+    }
+
+    /**
+     * @return the amount of the lines which should be saved in the database: the data lines of the duplicate
+     * soundings are not
+     */
+    public int dataLineCount() {
+        return totalLineCount - headerLineCount - duplicateLineCount;
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import com.github.terentich.adjust.dataloader.model.Flags;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import com.github.terentich.adjust.dataloader.model.IgraRecord;
+import com.github.terentich.adjust.dataloader.model.StringCache;
+
+/**
+ * Decodes the IGRA v2 lines by the column ranges of the specification (see {@link RegexLineParser})
+ * without regular expressions and intermediate token arrays.
+ * <p>
+ * Column numbers in this class are 1-based and inclusive, exactly as in the specification.
+ * Numeric fields are right-justified: optional leading blanks, an optional minus sign and at least one digit.
+ * Characters after the last specified column are allowed only if they are blanks.
+ * The repeated strings (station id, source codes, flags) are taken from the shared caches without allocation.
+ * A malformed line costs about as much as a valid one: no exceptions are thrown and nothing is logged.
+ */
+public class FixedColumnLineParser implements IgraLineParser {
+    private static final long INVALID = Long.MIN_VALUE;
+
+    private static final int HEADER_LENGTH = 71;
+    private static final int[] HEADER_SEPARATORS = {13, 18, 21, 24, 27, 32, 37, 46, 55, 63};
+
+    private static final int RECORD_LENGTH = 51;
+    private static final int[] RECORD_SEPARATORS = {3, 9, 34, 40, 46};
+
+    @Override
+    public IgraHeader parseHeader(CharSequence headerLine) {
+        if (headerLine.length() < HEADER_LENGTH
+            || headerLine.charAt(0) != '#'
+            || !isBlank(headerLine, HEADER_SEPARATORS)
+            || !isBlankTail(headerLine, HEADER_LENGTH)) {
+            return null;
+        }
+
+        String id = parseId(headerLine);
+        long year = parseDigits(headerLine, 14, 17);
+        long month = parseDigits(headerLine, 19, 20);
+        long day = parseDigits(headerLine, 22, 23);
+        long hour = parseDigits(headerLine, 25, 26);
+        long reltime = parseInt(headerLine, 28, 31);
+        long numlev = parseInt(headerLine, 33, 36);
+        long lat = parseInt(headerLine, 56, 62);
+        long lon = parseInt(headerLine, 64, 71);
+
+        if (id == null || year == INVALID || month == INVALID || day == INVALID || hour == INVALID
+            || reltime == INVALID || numlev == INVALID || lat == INVALID || lon == INVALID) {
+            return null;
+        }
+
+        return new IgraHeader(
+                id,
+                (int) year, (int) month, (int) day, (int) hour,
+                (int) reltime, (int) numlev,
+                parseString(headerLine, 38, 45, StringCache.SOURCE_CODES),
+                parseString(headerLine, 47, 54, StringCache.SOURCE_CODES),
+                (int) lat, (int) lon
+        );
+    }
+
+    @Override
+    public IgraRecord parseRecord(CharSequence recordLine) {
+        if (!isRecordLayout(recordLine)) {
+            return null;
+        }
+
+        long lvltyp1 = parseDigits(recordLine, 1, 1);
+        long lvltyp2 = parseDigits(recordLine, 2, 2);
+        long etime = parseInt(recordLine, 4, 8);
+        long press = parseInt(recordLine, 10, 15);
+        long gph = parseInt(recordLine, 17, 21);
+        long temp = parseInt(recordLine, 23, 27);
+        long rh = parseInt(recordLine, 29, 33);
+        long dpdp = parseInt(recordLine, 35, 39);
+        long wdir = parseInt(recordLine, 41, 45);
+        long wspd = parseInt(recordLine, 47, 51);
+
+        if (lvltyp1 == INVALID || lvltyp2 == INVALID || etime == INVALID || press == INVALID || gph == INVALID
+            || temp == INVALID || rh == INVALID || dpdp == INVALID || wdir == INVALID || wspd == INVALID) {
+            return null;
+        }
+
+        return new IgraRecord(
+                (int) lvltyp1, (int) lvltyp2,
+                (int) etime, (int) press, parseFlag(recordLine, 16),
+                (int) gph, parseFlag(recordLine, 22), (int) temp,
+                parseFlag(recordLine, 28), (int) rh, (int) dpdp,
+                (int) wdir, (int) wspd
+        );
+    }
+
+    @Override
+    public boolean parseRecord(CharSequence recordLine, IgraBatch batch, int headerIndex) {
+        if (!isRecordLayout(recordLine)) {
+            return false;
+        }
+
+        long lvltyp1 = parseDigits(recordLine, 1, 1);
+        long lvltyp2 = parseDigits(recordLine, 2, 2);
+        long etime = parseInt(recordLine, 4, 8);
+        long press = parseInt(recordLine, 10, 15);
+        long gph = parseInt(recordLine, 17, 21);
+        long temp = parseInt(recordLine, 23, 27);
+        long rh = parseInt(recordLine, 29, 33);
+        long dpdp = parseInt(recordLine, 35, 39);
+        long wdir = parseInt(recordLine, 41, 45);
+        long wspd = parseInt(recordLine, 47, 51);
+
+        if (lvltyp1 == INVALID || lvltyp2 == INVALID || etime == INVALID || press == INVALID || gph == INVALID
+            || temp == INVALID || rh == INVALID || dpdp == INVALID || wdir == INVALID || wspd == INVALID) {
+            return false;
+        }
+
+        return batch.addRecord(headerIndex,
+                (int) lvltyp1, (int) lvltyp2, (int) etime, (int) press, flagCode(recordLine, 16),
+                (int) gph, flagCode(recordLine, 22), (int) temp, flagCode(recordLine, 28),
+                (int) rh, (int) dpdp, (int) wdir, (int) wspd);
+    }
+
+    private static boolean isRecordLayout(CharSequence recordLine) {
+        return recordLine.length() >= RECORD_LENGTH
+               && isBlank(recordLine, RECORD_SEPARATORS)
+               && isBlankTail(recordLine, RECORD_LENGTH);
+    }
+
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean isBlank(CharSequence line, int[] columns) {
+        for (int column : columns) {
+            if (!isBlank(line.charAt(column - 1))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isBlankTail(CharSequence line, int lastColumn) {
+        for (int i = lastColumn; i < line.length(); i++) {
+            if (!isBlank(line.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Parses a right-justified signed integer: blanks, optional '-', at least one digit.
+     */
+    private static long parseInt(CharSequence line, int from, int to) {
+        int i = from - 1;
+
+        while (i < to && isBlank(line.charAt(i))) {
+            i++;
+        }
+
+        boolean negative = i < to && line.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+
+        long value = parseDigits(line, i + 1, to);
+        return value == INVALID ? INVALID : (negative ? -value : value);
+    }
+
+    /**
+     * Parses a field which contains only digits (at least one).
+     */
+    private static long parseDigits(CharSequence line, int from, int to) {
+        if (from > to) {
+            return INVALID;
+        }
+
+        long value = 0;
+
+        for (int i = from - 1; i < to; i++) {
+            int digit = line.charAt(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    private static String parseId(CharSequence line) {
+        for (int i = 1; i < 12; i++) {
+            if (Character.isWhitespace(line.charAt(i))) {
+                return null;
+            }
+        }
+
+        return StringCache.STATION_IDS.get(line, 1, 12);
+    }
+
+    private static String parseString(CharSequence line, int from, int to, StringCache cache) {
+        int start = from - 1;
+        int end = to;
+
+        while (start < end && isBlank(line.charAt(start))) {
+            start++;
+        }
+
+        while (end > start && isBlank(line.charAt(end - 1))) {
+            end--;
+        }
+
+        return cache.get(line, start, end);
+    }
+
+    private static char flagCode(CharSequence line, int column) {
+        char c = line.charAt(column - 1);
+        return isBlank(c) ? Flags.NONE : c;
+    }
+
+    private static String parseFlag(CharSequence line, int column) {
+        return Flags.of(flagCode(line, column));
+    }
+}
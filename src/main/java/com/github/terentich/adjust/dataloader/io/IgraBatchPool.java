@@ -0,0 +1,43 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded set of reusable batches shared by the file readers.
+ * The batches are allocated on demand; {@link #acquire()} blocks while all of them are in use.
+ */
+public class IgraBatchPool {
+    private final int maxBatches;
+    private final int batchCapacity;
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final BlockingQueue<IgraBatch> freeBatches = new LinkedBlockingQueue<>();
+
+    public IgraBatchPool(int maxBatches, int batchCapacity) {
+        this.maxBatches = maxBatches;
+        this.batchCapacity = batchCapacity;
+    }
+
+    public IgraBatch acquire() throws InterruptedException {
+        IgraBatch batch = freeBatches.poll();
+
+        if (batch != null) {
+            return batch;
+        }
+
+        if (allocated.getAndIncrement() < maxBatches) {
+            return new IgraBatch(batchCapacity);
+        }
+
+        allocated.decrementAndGet();
+        return freeBatches.take();
+    }
+
+    public void release(IgraBatch batch) {
+        batch.clear();
+        freeBatches.add(batch);
+    }
+}
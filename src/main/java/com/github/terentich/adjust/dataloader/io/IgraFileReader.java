@@ -1,261 +1,845 @@
 package com.github.terentich.adjust.dataloader.io;
 
-import com.github.terentich.adjust.dataloader.db.DbManager;
-import com.github.terentich.adjust.dataloader.model.IgraData;
+import com.github.terentich.adjust.dataloader.db.BatchSizer;
+import com.github.terentich.adjust.dataloader.db.IgraDataSink;
+import com.github.terentich.adjust.dataloader.metrics.LoaderMetrics;
+import com.github.terentich.adjust.dataloader.metrics.MeteredInputStream;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
 import com.github.terentich.adjust.dataloader.model.IgraHeader;
 import com.github.terentich.adjust.dataloader.model.IgraRecord;
+import com.github.terentich.adjust.dataloader.model.LoadCheckpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.sql.SQLException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.zip.ZipFile;
 
+/**
+ * Reads the soundings of an {@link IgraInput}: an archive entry is decompressed as a stream, an uncompressed
+ * text file is memory-mapped and parsed in place (unless the input decoding is UTF-8).
+ */
 public class IgraFileReader {
     private static final Logger log = LoggerFactory.getLogger(IgraFileReader.class);
 
-    private static final String HEADER_INDICATOR = "#";
-
-    private static final int BATCH_SIZE = 1_000_000;
-    private static final int MAX_BATCH_DATA_RECORDS = 500;
-
-    /*
-        Header record specification:
-        -------------------------------
-        Variable        Columns Type
-        -------------------------------
-        HEADREC       1-  1  Character
-        ID            2- 12  Character
-        YEAR         14- 17  Integer
-        MONTH        19- 20  Integer
-        DAY          22- 23  Integer
-        HOUR         25- 26  Integer
-        RELTIME      28- 31  Integer
-        NUMLEV       33- 36  Integer
-        P_SRC        38- 45  Character
-        NP_SRC       47- 54  Character
-        LAT          56- 62  Integer
-        LON          64- 71  Integer
-        ---------------------------------
-        Example:
-        #USM00070261 1930 08 26 99 1700    6          cdmp-usm  648161 -1478767
-    */
-    private static final Pattern HEADER_PATTERN = Pattern.compile(
-            "#(\\S{11})" +                 // id
-            "\\p{Blank}" +
-            "(\\d{4})" +                   // year
-            "\\p{Blank}" +
-            "(\\d{2})" +                   // month
-            "\\p{Blank}" +
-            "(\\d{2})" +                   // day
-            "\\p{Blank}" +
-            "(\\d{2})" +                   // hour
-            "\\p{Blank}" +
-            "(\\s{0,3}\\d{1,4})" +         // reltime
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,3}\\d{1,4})" +  // numlev
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,8}\\S{0,8})" +  // p_src
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,8}\\S{0,8})" +  // np_src
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,6}\\d{0,7})" +  // lat
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,6}-\\d{0,7})"   // lon
-    );
-
-    /*
-        Data record specification:
-        -------------------------------
-        Variable        Columns Type
-        -------------------------------
-        LVLTYP1         1-  1   Integer
-        LVLTYP2         2-  2   Integer
-        ETIME           4-  8   Integer
-        PRESS          10- 15   Integer
-        PFLAG          16- 16   Character
-        GPH            17- 21   Integer
-        ZFLAG          22- 22   Character
-        TEMP           23- 27   Integer
-        TFLAG          28- 28   Character
-        RH             29- 33   Integer
-        DPDP           35- 39   Integer
-        WDIR           41- 45   Integer
-        WSPD           47- 51   Integer
-        -------------------------------
-        Example:
-        30 -9999  -9999   250 -9999 -9999 -9999    90    20
-        10 -9999  40000  6440B -441B-9999 -9999   180   110
-        10    16 100000B  213B -228B  738    34    49    11
-        20  9237   1043 30497B -461B    5   392   300   570
-        20  7636   3880 22162B -501B-9999 -9999   255   230
-        20 10400   1310 29153B -510B-9999 -9999   237   180
-        10 11224   1000 31866B -343B-9999 -9999    69    50
-    */
-    private static final Pattern RECORD_PATTERN = Pattern.compile(
-            "(\\d)" +                       // lvltyp1
-            "(\\d)" +                       // lvltyp2
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,5}-?\\d{1,5})" + // etime
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,5}-?\\d{1,6})" + // press
-            "(\\S?)" +                      // pflag
-            "(\\p{Blank}{0,5}-?\\d{1,5})" + // gph
-            "(\\S?)" +                      // zflag
-            "(\\p{Blank}{0,5}-?\\d{1,5})" + // temp
-            "(\\S?)" +                      // tflag
-            "(\\p{Blank}{0,5}-?\\d{1,5})" + // rh
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,5}-?\\d{1,5})" + // dpdp
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,5}-?\\d{1,5})" + // wdir
-            "\\p{Blank}" +
-            "(\\p{Blank}{0,5}-?\\d{1,5})" + // wspd
-            "\\p{Blank}"
-    );
-
-    private final DbManager dbManager;
-
-    public IgraFileReader(DbManager dbManager) {
-        this.dbManager = dbManager;
-    }
-
-    public int processIgraData(File file) {
+    public static final String PARSER_PROPERTY = "loader.parser";
+    public static final String INPUT_PROPERTY = "loader.input";
+
+    private static final char HEADER_INDICATOR = '#';
+
+    // the maximal batch size
+    public static final int BATCH_SIZE = 1_000_000;
+    public static final int BATCH_CAPACITY = batchCapacity(BATCH_SIZE);
+    private static final int CHUNK_SIZE = 8 * 1024 * 1024;
+    // the mapped region of a sequentially parsed text file
+    private static final int MAPPED_REGION_SIZE = 256 * 1024 * 1024;
+    private static final int AVERAGE_LINE_LENGTH = 52;
+    // the parsed lines are published to the metrics in blocks of this size (a power of 2)
+    private static final int PUBLISH_LINES = 4096;
+    // the rejected lines are logged by all the readers together at most this often
+    private static final LogRateLimiter REJECTED_LINES_LOG = new LogRateLimiter(10);
+
+    private final IgraDataSink dataSink;
+    private final IgraLineParser lineParser;
+    private final String inputType;
+    private final IgraBatchPool batchPool;
+    private final ForkJoinPool chunkPool;
+    private IgraBatchPool chunkBatchPool;
+    private Map<String, LoadCheckpoint> loadManifest;
+    private BatchSizer batchSizer = BatchSizer.fixed(BATCH_SIZE);
+    private Quarantine quarantine;
+    private SoundingDedup dedup;
+
+    public IgraFileReader(IgraDataSink dataSink) {
+        this(dataSink, new Properties());
+    }
+
+    public IgraFileReader(IgraDataSink dataSink, Properties config) {
+        this(dataSink, config, new IgraBatchPool(1, BATCH_CAPACITY), null);
+    }
+
+    /**
+     * @param batchPool the batches for the parsed data, shared with the other readers
+     * @param chunkPool the pool for parsing the parts of a file in parallel;
+     *                  {@code null} - the file is parsed sequentially by the calling thread
+     */
+    public IgraFileReader(IgraDataSink dataSink, Properties config, IgraBatchPool batchPool, ForkJoinPool chunkPool) {
+        this.dataSink = dataSink;
+        this.lineParser = IgraLineParser.create(config.getProperty(PARSER_PROPERTY));
+        this.inputType = config.getProperty(INPUT_PROPERTY);
+        this.batchPool = batchPool;
+        this.chunkPool = chunkPool;
+    }
+
+    /**
+     * Enables the incremental load: the files completed in the manifest are skipped, the partly loaded files are
+     * continued after the last committed sounding, and every batch commits the new checkpoint of its file.
+     *
+     * @param loadManifest the committed checkpoints by the file path
+     */
+    public void setLoadManifest(Map<String, LoadCheckpoint> loadManifest) {
+        this.loadManifest = loadManifest;
+    }
+
+    /**
+     * @param batchSizer the size and the deadline of the submitted batches; by default the batches have
+     *                   {@link #BATCH_SIZE} rows
+     */
+    public void setBatchSizer(BatchSizer batchSizer) {
+        this.batchSizer = batchSizer;
+    }
+
+    /**
+     * @return the capacity of a reusable batch: a batch is closed at a sounding boundary, so it has room
+     * for the last sounding after the batch size
+     */
+    public static int batchCapacity(int batchSize) {
+        return batchSize + 10_000;
+    }
+
+    /**
+     * @param chunkBatchPool the batches of the chunks parsed in the chunk pool, shared with the other readers;
+     *                       {@code null} - the reader has its own batches
+     */
+    public void setChunkBatchPool(IgraBatchPool chunkBatchPool) {
+        this.chunkBatchPool = chunkBatchPool;
+    }
+
+    /**
+     * @return the chunk batches used by one reader at most: the chunks in flight and the chunk being submitted,
+     * so a pool of this size per reader never blocks
+     */
+    public static int chunkBatchCount(ForkJoinPool chunkPool) {
+        return chunkPool.getParallelism() * 2 + 1;
+    }
+
+    /**
+     * @return the capacity of a chunk batch; a chunk with more rows grows its batch
+     */
+    public static int chunkBatchCapacity() {
+        return CHUNK_SIZE / AVERAGE_LINE_LENGTH;
+    }
+
+    /**
+     * @param quarantine receives the rejected lines with their input and line number; {@code null} - they are
+     *                   only counted and logged (with a rate limit)
+     */
+    public void setQuarantine(Quarantine quarantine) {
+        this.quarantine = quarantine;
+    }
+
+    /**
+     * @param dedup the soundings loaded before, shared by the readers of all the inputs; {@code null} - all
+     *              the soundings are loaded
+     */
+    public void setDedup(SoundingDedup dedup) {
+        this.dedup = dedup;
+    }
+
+    /**
+     * Loads all the inputs of the file: the entries of an archive or the text file, one after another.
+     */
+    public int processIgraData(File file) throws IOException {
         int correctLineCount = 0;
-        int totalLineCount = 0;
-        int savedLineCount = 0;
-        int headerLineCount = 0;
-        int commitedLineCount = 0;
-        List<IgraData> igraData = new ArrayList<>(BATCH_SIZE);
-
-        try (ZipFile zipFile = new ZipFile(file)) {
-            ZipEntry zipEntry = zipFile.entries().nextElement();
-
-            try (InputStream stream = zipFile.getInputStream(zipEntry);
-                 InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
-                 BufferedReader bufferedReader = new BufferedReader(reader)) {
-
-                IgraHeader header = null;
-                List<IgraRecord> dataRecords = new ArrayList<>(MAX_BATCH_DATA_RECORDS);
-                String line;
-                int failedLineCount = 0;
-
-                while ((line = bufferedReader.readLine()) != null) {
-                    if (line.startsWith(HEADER_INDICATOR)) {
-                        if (totalLineCount == 0) {
-                            header = createHeader(line);
-                        } else {
-                            igraData.add(new IgraData(header, dataRecords));
-                            header = createHeader(line);
-                            dataRecords = new ArrayList<>(MAX_BATCH_DATA_RECORDS);
-                        }
-
-                        if (header == null) {
-                            failedLineCount++;
-                        } else {
-                            headerLineCount++;
-                        }
-
-                        if (totalLineCount - headerLineCount - commitedLineCount > BATCH_SIZE) {
-                            savedLineCount += dbManager.saveData(igraData);
-                            igraData.clear();
-                            commitedLineCount = totalLineCount;
-                        }
-                    } else {
-                        IgraRecord record = createRecord(line);
-
-                        if (record == null) {
-                            failedLineCount++;
-                        } else {
-                            dataRecords.add(record);
-                        }
+
+        for (IgraInput input : IgraInput.of(file)) {
+            correctLineCount += processIgraData(input);
+        }
+
+        return correctLineCount;
+    }
+
+    public int processIgraData(IgraInput input) throws IOException {
+        LoadCheckpoint checkpoint = startCheckpoint(input);
+
+        if (checkpoint != null && checkpoint.completed()) {
+            log.info("Input has already been loaded: {}", input);
+            return 0;
+        }
+
+        LoaderMetrics.FileProgress progress = LoaderMetrics.get().startFile(input.name(), input.size());
+
+        try {
+            List<CompletableFuture<Integer>> savedBatches = new ArrayList<>();
+            BatchCollector batches = new BatchCollector(savedBatches, checkpoint);
+            FileStats stats = read(input, progress, batches);
+            stats.addDuplicates(batches.duplicateSoundings, batches.duplicateLines);
+            int savedLineCount = waitForSavedLines(input, savedBatches);
+
+            if (checkpoint != null) {
+                savedLineCount += checkpoint.savedLines();
+            }
+
+            log.info("Total lines of {} = {} (headers: {}), saved lines = {}, failed lines = {} ", input,
+                    stats.totalLineCount(), stats.headerLineCount(), savedLineCount, stats.failedLineCount());
+
+            if (stats.failedLineCount() > 0) {
+                log.warn("Failed lines of {}: {}", input, stats.failedLineReasons());
+            }
+
+            if (stats.duplicateSoundingCount() > 0) {
+                log.info("Duplicate soundings of {} have been skipped: {} ({} data lines)", input,
+                        stats.duplicateSoundingCount(), stats.duplicateLineCount());
+            }
+
+            if (batches.unidentifiedSoundings > 0) {
+                log.info("Soundings of {} without hour or release time have not been deduplicated: {}", input,
+                        batches.unidentifiedSoundings);
+            }
+
+            int correctLineCount = stats.dataLineCount();
+            if (correctLineCount == savedLineCount) {
+                log.info("All lines have been saved successfully: {}", input);
+            } else {
+                log.error("Some lines of {} have not been saved: should be {}, but {} (diff={})", input,
+                        correctLineCount, savedLineCount, (correctLineCount - savedLineCount));
+            }
+
+            return correctLineCount;
+        } finally {
+            LoaderMetrics.get().finishFile(progress);
+        }
+    }
+
+    private FileStats read(IgraInput input, LoaderMetrics.FileProgress progress, BatchCollector batches)
+            throws IOException {
+        LineRejects rejects = (error, lineNumber, line) -> reject(input, error, lineNumber, line);
+
+        if (input.isArchiveEntry()) {
+            try (ZipFile zipFile = new ZipFile(input.file());
+                 InputStream stream = new MeteredInputStream(
+                         zipFile.getInputStream(zipFile.getEntry(input.entryName())), progress)) {
+                return chunkPool == null
+                        ? readSequentially(stream, batches, rejects)
+                        : readChunks(stream, batches, rejects);
+            }
+        } else if (IgraLineReader.UTF8.equalsIgnoreCase(String.valueOf(inputType).trim())) {
+            try (InputStream stream = new MeteredInputStream(Files.newInputStream(input.file().toPath()), progress)) {
+                return readSequentially(stream, batches, rejects);
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(input.file().toPath(), StandardOpenOption.READ)) {
+            return readMapped(channel, progress, batches, rejects);
+        }
+    }
+
+    /**
+     * @return the checkpoint to continue the file from or {@code null} if the load is not incremental
+     * @throws IOException if the file has been changed since it was loaded: its rows are not known, so they
+     *                     cannot be replaced, and loading it again would duplicate them
+     */
+    private LoadCheckpoint startCheckpoint(IgraInput input) throws IOException {
+        if (loadManifest == null) {
+            return null;
+        }
+
+        String path = input.name();
+        long size = input.size();
+        String checksum = input.checksum();
+        LoadCheckpoint checkpoint = loadManifest.get(path);
+
+        if (checkpoint == null) {
+            return new LoadCheckpoint(path, size, checksum, 0, 0, false);
+        } else if (checkpoint.size() == size && input.isLegacyChecksum(checkpoint.checksum())) {
+            checkpoint = new LoadCheckpoint(path, size, checksum, checkpoint.soundings(), checkpoint.savedLines(),
+                    checkpoint.completed());
+        } else if (!checkpoint.isSameFile(size, checksum)) {
+            throw new IOException("File has been changed since the previous load, it is not loaded again: " + path +
+                                  " (reload all files with loader.incremental=false or delete its rows and its " +
+                                  "load_manifest entry)");
+        }
+
+        if (!checkpoint.completed()) {
+            log.info("Resuming file after sounding {} ({} lines have been saved before): {}",
+                    checkpoint.soundings(), checkpoint.savedLines(), path);
+        }
+
+        return checkpoint;
+    }
+
+    public IgraHeader createHeader(String headerLine) {
+        return lineParser.parseHeader(headerLine);
+    }
+
+    public IgraRecord createRecord(String recordLine) {
+        return lineParser.parseRecord(recordLine);
+    }
+
+    private FileStats readSequentially(InputStream stream, BatchCollector batches, LineRejects rejects)
+            throws IOException {
+        FileStats stats = new FileStats();
+
+        try (IgraLineReader lineReader = IgraLineReader.create(inputType, stream)) {
+            parseLines(lineReader, stats, batches, rejects);
+            batches.finish();
+        } finally {
+            batches.flush(false);
+        }
+
+        return stats;
+    }
+
+    /**
+     * Cuts the stream into chunks at the header lines, so a sounding is never split, and parses the chunks in the
+     * chunk pool. The results are collected in the file order; the amount of the chunks in flight is limited.
+     */
+    private FileStats readChunks(InputStream stream, BatchCollector batches, LineRejects rejects)
+            throws IOException {
+        FileStats stats = new FileStats();
+        Deque<ForkJoinTask<ParsedChunk>> pendingChunks = new ArrayDeque<>();
+        int maxPendingChunks = chunkPool.getParallelism() * 2;
+
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int length = 0;
+        boolean endOfStream = false;
+
+        try {
+            while (!endOfStream) {
+                int read = stream.readNBytes(buffer, length, buffer.length - length);
+                length += read;
+                endOfStream = length < buffer.length;
+
+                int cut = endOfStream ? length : lastHeaderOffset(buffer, length);
+
+                if (cut <= 0) {
+                    if (!endOfStream) {
+                        // the sounding does not fit into the buffer
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
                     }
+                    continue;
+                }
 
-                    totalLineCount++;
+                byte[] chunk = buffer;
+                int chunkLength = cut;
+                pendingChunks.add(submitChunk(new AsciiLineReader(chunk, 0, chunkLength)));
+
+                buffer = new byte[Math.max(CHUNK_SIZE, length - cut)];
+                System.arraycopy(chunk, cut, buffer, 0, length - cut);
+                length -= cut;
+
+                while (pendingChunks.size() > maxPendingChunks) {
+                    collectChunk(pendingChunks.poll(), stats, batches, rejects);
                 }
+            }
 
-                igraData.add(new IgraData(header, dataRecords));
-                savedLineCount += dbManager.saveData(igraData);
-
-                log.info("Total file lines = {} (headers: {}), saved lines = {}, failed lines = {} ", totalLineCount,
-                        headerLineCount, savedLineCount, failedLineCount);
-                correctLineCount = totalLineCount - headerLineCount;
-                if (correctLineCount == savedLineCount) {
-                    log.info("All file lines have been saved successfully");
-                } else {
-                    log.error("Some file lines have not been saved: should be {}, but {} (diff={})", correctLineCount,
-                            savedLineCount, (correctLineCount - savedLineCount));
+            while (!pendingChunks.isEmpty()) {
+                collectChunk(pendingChunks.poll(), stats, batches, rejects);
+            }
+
+            batches.finish();
+        } finally {
+            releaseChunks(pendingChunks);
+            batches.flush(false);
+        }
+
+        return stats;
+    }
+
+    /**
+     * Parses the mapped regions of a text file: in the calling thread or, with the chunk pool, in parallel
+     * like {@link #readChunks}. The regions start at the header lines, so they are parsed without copying.
+     */
+    private FileStats readMapped(FileChannel channel, LoaderMetrics.FileProgress progress, BatchCollector batches,
+                                 LineRejects rejects) throws IOException {
+        FileStats stats = new FileStats();
+        Deque<ForkJoinTask<ParsedChunk>> pendingChunks = new ArrayDeque<>();
+        int maxPendingChunks = chunkPool == null ? 0 : chunkPool.getParallelism() * 2;
+        MappedChunks chunks = new MappedChunks(channel, chunkPool == null ? MAPPED_REGION_SIZE : CHUNK_SIZE);
+
+        try {
+            ByteBuffer chunk;
+
+            while (!batches.hasFailedBatch() && (chunk = chunks.next()) != null) {
+                progress.addBytes(chunk.remaining());
+
+                if (chunkPool == null) {
+                    parseLines(new ByteBufferLineReader(chunk), stats, batches, rejects);
+                    continue;
+                }
+
+                pendingChunks.add(submitChunk(new ByteBufferLineReader(chunk)));
+
+                while (pendingChunks.size() > maxPendingChunks) {
+                    collectChunk(pendingChunks.poll(), stats, batches, rejects);
                 }
             }
-        } catch (IOException | SQLException e) {
-            log.error("Unable to process input file", e);
+
+            while (!pendingChunks.isEmpty()) {
+                collectChunk(pendingChunks.poll(), stats, batches, rejects);
+            }
+
+            batches.finish();
+        } finally {
+            releaseChunks(pendingChunks);
+            batches.flush(false);
         }
 
-        return correctLineCount;
+        return stats;
     }
 
-    public IgraHeader createHeader(String headerLine) {
-        IgraHeader header = null;
-        String[] tokens = parse(headerLine, HEADER_PATTERN, 11);
+    private static int lastHeaderOffset(byte[] buffer, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            if (buffer[i] == HEADER_INDICATOR && (buffer[i - 1] == '\n' || buffer[i - 1] == '\r')) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Parses the chunk in the chunk pool into a batch of the chunk batch pool; the batch is taken by the calling
+     * thread, so the chunks in flight are limited by the caller and a chunk task never waits for a batch.
+     */
+    private ForkJoinTask<ParsedChunk> submitChunk(IgraLineReader lineReader) throws InterruptedIOException {
+        if (chunkBatchPool == null) {
+            chunkBatchPool = new IgraBatchPool(chunkBatchCount(chunkPool), chunkBatchCapacity());
+        }
+
+        IgraBatch batch;
 
         try {
-            header = new IgraHeader(
-                    tokens[0],
-                    Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]), Integer.parseInt(tokens[4]),
-                    Integer.parseInt(tokens[5]), Integer.parseInt(tokens[6]),
-                    tokens[7], tokens[8],
-                    Integer.parseInt(tokens[9]), Integer.parseInt(tokens[10])
-            );
-        } catch (NumberFormatException e) {
-            log.error("Unable to parse header tokens: '{}'\n{}", headerLine, e);
+            batch = chunkBatchPool.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free chunk batch");
         }
 
-        return header;
+        return chunkPool.submit(() -> parseChunk(lineReader, batch));
     }
 
-    public IgraRecord createRecord(String recordLine) {
-        IgraRecord record = null;
-        String[] tokens = parse(recordLine, RECORD_PATTERN, 13);
+    private ParsedChunk parseChunk(IgraLineReader lineReader, IgraBatch batch) throws IOException {
+        ParsedChunk parsedChunk = new ParsedChunk(batch);
+
+        try (lineReader) {
+            parseLines(lineReader, parsedChunk.stats, header -> parsedChunk.batch, parsedChunk);
+        } catch (IOException | RuntimeException e) {
+            chunkBatchPool.release(batch);
+            throw e;
+        }
+
+        return parsedChunk;
+    }
+
+    /**
+     * Adds the parsed chunk to the file: its soundings go to the batches, its rejected lines are numbered
+     * from the lines of the file before it.
+     */
+    private void collectChunk(ForkJoinTask<ParsedChunk> task, FileStats stats, BatchCollector batches,
+                              LineRejects rejects) throws IOException {
+        ParsedChunk parsedChunk = task.join();
 
         try {
-            record = new IgraRecord(
-                    Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1]),
-                    Integer.parseInt(tokens[2]), Integer.parseInt(tokens[3]), tokens[4],
-                    Integer.parseInt(tokens[5]), tokens[6], Integer.parseInt(tokens[7]),
-                    tokens[8], Integer.parseInt(tokens[9]), Integer.parseInt(tokens[10]),
-                    Integer.parseInt(tokens[11]), Integer.parseInt(tokens[12])
-            );
-        } catch (NumberFormatException e) {
-            log.error("Unable to parse record tokens: '{}'\n{}", recordLine, e);
+            addChunk(parsedChunk, stats, batches, rejects);
+        } finally {
+            chunkBatchPool.release(parsedChunk.batch);
+        }
+    }
+
+    private static void addChunk(ParsedChunk parsedChunk, FileStats stats, BatchCollector batches,
+                                 LineRejects rejects) throws IOException {
+        int firstLine = stats.totalLineCount();
+        stats.add(parsedChunk.stats);
+
+        for (int i = 0; i < parsedChunk.rejectedLines.size(); i++) {
+            RejectedLine rejected = parsedChunk.rejectedLines.get(i);
+            rejects.reject(rejected.error, firstLine + rejected.lineNumber, rejected.line);
+        }
+
+        for (int i = 0; i < parsedChunk.batch.headerCount(); i++) {
+            IgraBatch batch = batches.startSounding(parsedChunk.batch.header(i));
+
+            if (batch == null) {
+                return;
+            }
+
+            if (batches.isScratch(batch)) {
+                batches.dropSounding(parsedChunk.batch.lastRow(i) - parsedChunk.batch.firstRow(i));
+            } else {
+                batch.addSounding(parsedChunk.batch, i);
+            }
         }
+    }
 
-        return record;
+    /**
+     * Returns the batches of the chunks left after a failure; a failed chunk has returned its batch already.
+     */
+    private void releaseChunks(Deque<ForkJoinTask<ParsedChunk>> pendingChunks) {
+        ForkJoinTask<ParsedChunk> task;
+
+        while ((task = pendingChunks.poll()) != null) {
+            try {
+                chunkBatchPool.release(task.join().batch);
+            } catch (RuntimeException e) {
+                log.debug("Chunk has failed after the file", e);
+            }
+        }
     }
 
-    public String[] parse(String inputLine, Pattern pattern, int requiredTokens) {
-        Matcher matcher = pattern.matcher(inputLine);
+    /**
+     * Groups the lines into soundings: a header line and the data lines after it.
+     * The data lines without a valid header line before them are counted as failed.
+     * A rejected line is passed to the rejects with its number in the stats.
+     */
+    private void parseLines(IgraLineReader lineReader, FileStats stats, SoundingTarget target, LineRejects rejects)
+            throws IOException {
+        IgraBatch batch = null;
+        int headerIndex = -1;
+        int lineCount = 0;
+        CharSequence line;
+
+        while ((line = lineReader.readLine()) != null) {
+            if ((++lineCount & (PUBLISH_LINES - 1)) == 0) {
+                stats.publish();
+            }
+
+            if (line.length() > 0 && line.charAt(0) == HEADER_INDICATOR) {
+                IgraHeader header = lineParser.parseHeader(line);
+
+                if (header == null) {
+                    stats.addFailedLine(LineError.INVALID_HEADER);
+                    rejects.reject(LineError.INVALID_HEADER, stats.totalLineCount(), line);
+                    headerIndex = -1;
+                    continue;
+                }
+
+                batch = target.startSounding(header);
+
+                if (batch == null) {
+                    break;
+                }
 
-        if (!matcher.matches() || matcher.groupCount() != requiredTokens) {
-            log.error("Unknown line format: '{}'", inputLine);
-            return new String[]{};
+                headerIndex = batch.addHeader(header);
+                stats.addHeaderLine();
+            } else if (headerIndex < 0) {
+                stats.addFailedLine(LineError.NO_HEADER);
+                rejects.reject(LineError.NO_HEADER, stats.totalLineCount(), line);
+            } else if (lineParser.parseRecord(line, batch, headerIndex)) {
+                stats.addDataLine();
+            } else {
+                // the line is parsed again only to tell the reason
+                LineError error = lineParser.parseRecord(line) == null
+                        ? LineError.INVALID_RECORD
+                        : LineError.OUT_OF_RANGE;
+                stats.addFailedLine(error);
+                rejects.reject(error, stats.totalLineCount(), line);
+            }
         }
 
-        String[] tokens = new String[matcher.groupCount()];
+        stats.publish();
+    }
 
-        for (int i = 1; i <= matcher.groupCount(); i++) {
-            tokens[i - 1] = matcher.group(i).trim();
+    /**
+     * Writes the rejected line to the quarantine and logs it unless too many lines have been logged recently.
+     */
+    private void reject(IgraInput input, LineError error, int lineNumber, CharSequence line) {
+        if (quarantine != null) {
+            quarantine.write(input.name(), lineNumber, error, line);
         }
 
-        return tokens;
+        long suppressed = REJECTED_LINES_LOG.acquire();
+
+        if (suppressed > 0) {
+            log.error("Rejected line {} of {} ({}): '{}', {} rejected lines have not been logged before",
+                    lineNumber, input, error, line, suppressed);
+        } else if (suppressed == 0) {
+            log.error("Rejected line {} of {} ({}): '{}'", lineNumber, input, error, line);
+        }
+    }
+
+    private static int waitForSavedLines(IgraInput input, List<CompletableFuture<Integer>> savedBatches) {
+        int savedLineCount = 0;
+
+        for (CompletableFuture<Integer> savedBatch : savedBatches) {
+            try {
+                savedLineCount += savedBatch.get();
+            } catch (ExecutionException e) {
+                log.error("Unable to save data of input: {}", input, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while saving data of input: {}", input);
+                break;
+            }
+        }
+
+        return savedLineCount;
+    }
+
+    /**
+     * Receives the rejected lines of an input.
+     */
+    @FunctionalInterface
+    private interface LineRejects {
+        /**
+         * @param line the line, valid only during the call
+         */
+        void reject(LineError error, int lineNumber, CharSequence line);
+    }
+
+    /**
+     * Provides the batch for the next sounding.
+     */
+    @FunctionalInterface
+    private interface SoundingTarget {
+        /**
+         * @param header the header of the sounding, it is added to the batch by the caller
+         * @return {@code null} to stop reading
+         */
+        IgraBatch startSounding(IgraHeader header) throws IOException;
+    }
+
+    /**
+     * Fills the batches of the pool and submits them to the sink when they have more data records than
+     * the {@link BatchSizer} size or are older than its deadline. A batch goes back to the pool when it has been saved.
+     * Stops accepting the soundings after a failed batch.
+     * <p>
+     * In the incremental load the soundings before the start checkpoint are parsed into the scratch batch and
+     * dropped, every batch carries the checkpoint after its last sounding, and a batch is submitted only after
+     * the previous batch of the file has been committed, so the committed checkpoint never skips a batch.
+     * <p>
+     * The duplicate soundings ({@link SoundingDedup}) are parsed into the scratch batch too; the soundings
+     * of a parsed chunk are dropped without copying them. They are checked here,
+     * in the order of the file also for the parsed chunks, and after the soundings before the checkpoint,
+     * so the checkpoint counts all the soundings of the file and a resumed load skips the same soundings.
+     * The soundings of a batch which has failed or has not been submitted are removed from the deduplication.
+     */
+    private final class BatchCollector implements SoundingTarget {
+        private final List<CompletableFuture<Integer>> savedBatches;
+        private final LoadCheckpoint start;
+        private int soundingsToSkip;
+        private int soundings;
+        private IgraBatch scratchBatch;
+        private boolean duplicateInScratch;
+        private int duplicateSoundings;
+        private int duplicateLines;
+        private int unidentifiedSoundings;
+        private IgraBatch batch;
+        private long batchStartTime;
+
+        private BatchCollector(List<CompletableFuture<Integer>> savedBatches, LoadCheckpoint start) {
+            this.savedBatches = savedBatches;
+            this.start = start;
+            this.soundingsToSkip = start == null ? 0 : start.soundings();
+        }
+
+        @Override
+        public IgraBatch startSounding(IgraHeader header) throws IOException {
+            if (hasFailedBatch()) {
+                return null;
+            }
+
+            countDuplicateLines();
+
+            if (soundingsToSkip > 0) {
+                soundingsToSkip--;
+                soundings++;
+                return scratchBatch(false);
+            }
+
+            if (dedup != null && !SoundingDedup.isIdentified(header)) {
+                unidentifiedSoundings++;
+            } else if (dedup != null && !dedup.add(header)) {
+                duplicateSoundings++;
+                soundings++;
+                return scratchBatch(true);
+            }
+
+            if (batch != null && (batch.size() > batchSizer.batchRows() || isPastDeadline())) {
+                flush(false);
+            }
+
+            if (batch == null) {
+                try {
+                    batch = batchPool.acquire();
+                    batchStartTime = System.nanoTime();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a free batch");
+                }
+            }
+
+            soundings++;
+            return batch;
+        }
+
+        /**
+         * Submits the last batch; in the incremental load it marks the file as completed even if it is empty.
+         */
+        private void finish() throws IOException {
+            countDuplicateLines();
+
+            if (start != null && batch == null && !hasFailedBatch()) {
+                try {
+                    batch = batchPool.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a free batch");
+                }
+            }
+
+            flush(true);
+        }
+
+        /**
+         * @return the cleared scratch batch for a sounding which is not loaded
+         */
+        private IgraBatch scratchBatch(boolean duplicate) {
+            if (scratchBatch == null) {
+                scratchBatch = new IgraBatch(1024);
+            }
+
+            scratchBatch.clear();
+            duplicateInScratch = duplicate;
+            return scratchBatch;
+        }
+
+        private boolean isScratch(IgraBatch batch) {
+            return batch == scratchBatch;
+        }
+
+        /**
+         * Drops the sounding of a parsed chunk instead of copying it into the scratch batch.
+         *
+         * @param lines the data lines of the sounding
+         */
+        private void dropSounding(int lines) {
+            if (duplicateInScratch) {
+                duplicateLines += lines;
+                duplicateInScratch = false;
+            }
+        }
+
+        private void countDuplicateLines() {
+            if (duplicateInScratch) {
+                duplicateLines += scratchBatch.size();
+                duplicateInScratch = false;
+            }
+        }
+
+        private void flush(boolean completed) {
+            if (batch == null) {
+                return;
+            }
+
+            IgraBatch submitted = batch;
+            batch = null;
+
+            if (start != null) {
+                Integer savedLines = waitForPreviousBatches();
+
+                if (savedLines == null) {
+                    forgetSoundings(submitted);
+                    batchPool.release(submitted);
+                    return;
+                }
+
+                submitted.setCheckpoint(new LoadCheckpoint(start.path(), start.size(), start.checksum(),
+                        soundings, start.savedLines() + savedLines, completed));
+            }
+
+            if ((submitted.isEmpty() && submitted.checkpoint() == null) || hasFailedBatch()) {
+                forgetSoundings(submitted);
+                batchPool.release(submitted);
+                return;
+            }
+
+            CompletableFuture<Integer> savedBatch = dataSink.save(submitted);
+            savedBatch.whenComplete((savedLines, error) -> {
+                if (error != null) {
+                    forgetSoundings(submitted);
+                }
+
+                batchPool.release(submitted);
+            });
+            savedBatches.add(savedBatch);
+        }
+
+        private void forgetSoundings(IgraBatch unsaved) {
+            if (dedup != null) {
+                for (int i = 0; i < unsaved.headerCount(); i++) {
+                    dedup.remove(unsaved.header(i));
+                }
+            }
+        }
+
+        /**
+         * @return the lines saved by the submitted batches or {@code null} if a batch has failed
+         */
+        private Integer waitForPreviousBatches() {
+            int savedLines = 0;
+
+            for (CompletableFuture<Integer> savedBatch : savedBatches) {
+                try {
+                    savedLines += savedBatch.get();
+                } catch (ExecutionException e) {
+                    return null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+
+            return savedLines;
+        }
+
+        private boolean isPastDeadline() {
+            long deadline = batchSizer.deadlineNanos();
+            return deadline > 0 && !batch.isEmpty() && System.nanoTime() - batchStartTime > deadline;
+        }
+
+        private boolean hasFailedBatch() {
+            return savedBatches
+                    .stream()
+                    .anyMatch(CompletableFuture::isCompletedExceptionally);
+        }
+    }
+
+    /**
+     * The result of a chunk parsed in the chunk pool: the rejected lines are kept until the chunk is collected,
+     * when their numbers in the file are known.
+     */
+    private static final class ParsedChunk implements LineRejects {
+        private final FileStats stats = new FileStats();
+        private final List<RejectedLine> rejectedLines = new ArrayList<>();
+        private final IgraBatch batch;
+
+        private ParsedChunk(IgraBatch batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void reject(LineError error, int lineNumber, CharSequence line) {
+            rejectedLines.add(new RejectedLine(error, lineNumber, line.toString()));
+        }
+    }
+
+    private static final class RejectedLine {
+        private final LineError error;
+        private final int lineNumber;
+        private final String line;
+
+        private RejectedLine(LineError error, int lineNumber, String line) {
+            this.error = error;
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
     }
 }
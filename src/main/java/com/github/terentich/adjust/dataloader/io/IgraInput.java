@@ -0,0 +1,171 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A unit of the input which is loaded on its own: an uncompressed text file or one entry of a zip archive.
+ * <p>
+ * The name identifies the unit in the logs and in the load manifest: the file path for a text file and
+ * for a single-entry archive, {@code <archive path>!/<entry name>} for an entry of a multi-entry archive.
+ */
+public final class IgraInput {
+    private static final String ARCHIVE_EXTENSION = ".zip";
+    private static final String TEXT_EXTENSION = ".txt";
+    private static final int CHECKSUM_BUFFER_SIZE = 1 << 20;
+
+    private final File file;
+    private final String entryName;
+    private final String name;
+    private final long size;
+    private String checksum;
+
+    private IgraInput(File file, String entryName, String name, long size, String checksum) {
+        this.file = file;
+        this.entryName = entryName;
+        this.name = name;
+        this.size = size;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Finds the archives ({@code *.zip}) and the text files ({@code *.txt}) in the directory and its subdirectories.
+     */
+    public static List<IgraInput> scan(Path path) throws IOException {
+        List<Path> files;
+
+        try (Stream<Path> paths = Files.walk(path)) {
+            files = paths
+                    .filter(Files::isRegularFile)
+                    .filter(file -> isArchive(file.toFile()) || isText(file.toFile()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        List<IgraInput> inputs = new ArrayList<>();
+
+        for (Path file : files) {
+            inputs.addAll(of(file.toFile()));
+        }
+
+        return inputs;
+    }
+
+    /**
+     * @return the entries of an archive (except the directories) or the text file itself
+     */
+    public static List<IgraInput> of(File file) throws IOException {
+        String path = file.getAbsolutePath();
+
+        if (!isArchive(file)) {
+            // the checksum of a text file is computed when it is needed
+            return List.of(new IgraInput(file, null, path, file.length(), null));
+        }
+
+        List<ZipEntry> entries = new ArrayList<>();
+
+        try (ZipFile zipFile = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry entry = zipEntries.nextElement();
+
+                if (!entry.isDirectory()) {
+                    entries.add(entry);
+                }
+            }
+        }
+
+        List<IgraInput> inputs = new ArrayList<>();
+
+        for (ZipEntry entry : entries) {
+            inputs.add(new IgraInput(file, entry.getName(),
+                    entries.size() == 1 ? path : path + "!/" + entry.getName(),
+                    entry.getSize() >= 0 ? entry.getSize() : file.length(),
+                    Long.toHexString(entry.getCrc())));
+        }
+
+        return inputs;
+    }
+
+    private static boolean isArchive(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(ARCHIVE_EXTENSION);
+    }
+
+    private static boolean isText(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(TEXT_EXTENSION);
+    }
+
+    public File file() {
+        return file;
+    }
+
+    /**
+     * @return the name of the archive entry or {@code null} for a text file
+     */
+    public String entryName() {
+        return entryName;
+    }
+
+    public boolean isArchiveEntry() {
+        return entryName != null;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return the uncompressed size in bytes (the archive size if the entry size is unknown)
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the CRC-32 of the content in hex: from the archive directory for an entry, a text file is read
+     * on the first call
+     */
+    public String checksum() throws IOException {
+        if (checksum == null) {
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+
+            try (InputStream stream = new FileInputStream(file)) {
+                for (int length = stream.read(buffer); length >= 0; length = stream.read(buffer)) {
+                    crc.update(buffer, 0, length);
+                }
+            }
+
+            checksum = Long.toHexString(crc.getValue());
+        }
+
+        return checksum;
+    }
+
+    /**
+     * @return {@code true} if the checksum is the modification time of the text file, the checksum of the manifests
+     * of the previous versions
+     */
+    public boolean isLegacyChecksum(String checksum) {
+        return !isArchiveEntry() && Long.toHexString(file.lastModified()).equals(checksum);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
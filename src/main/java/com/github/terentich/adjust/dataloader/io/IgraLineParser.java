@@ -0,0 +1,39 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import com.github.terentich.adjust.dataloader.model.IgraRecord;
+
+/**
+ * Converts a single line of the IGRA v2 file into a header or a data record.
+ * Implementations return {@code null} for lines which do not satisfy the format and do not log them:
+ * the rejected lines are counted and reported by {@link IgraFileReader}.
+ */
+public interface IgraLineParser {
+    String FIXED = "fixed";
+    String REGEX = "regex";
+
+    IgraHeader parseHeader(CharSequence headerLine);
+
+    IgraRecord parseRecord(CharSequence recordLine);
+
+    /**
+     * Parses the data line directly into the batch.
+     *
+     * @return {@code false} if the line has not been added to the batch
+     */
+    default boolean parseRecord(CharSequence recordLine, IgraBatch batch, int headerIndex) {
+        IgraRecord record = parseRecord(recordLine);
+        return record != null && batch.addRecord(headerIndex, record);
+    }
+
+    static IgraLineParser create(String type) {
+        if (type == null || FIXED.equalsIgnoreCase(type.trim())) {
+            return new FixedColumnLineParser();
+        } else if (REGEX.equalsIgnoreCase(type.trim())) {
+            return new RegexLineParser();
+        }
+
+        throw new IllegalArgumentException("Unknown line parser type: " + type);
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A source of text lines. The returned line may be reused by the next call of {@link #readLine()}.
+ */
+public interface IgraLineReader extends Closeable {
+    String ASCII = "ascii";
+    String UTF8 = "utf8";
+
+    CharSequence readLine() throws IOException;
+
+    static IgraLineReader create(String type, InputStream stream) {
+        if (type == null || ASCII.equalsIgnoreCase(type.trim())) {
+            return new AsciiLineReader(stream);
+        } else if (UTF8.equalsIgnoreCase(type.trim())) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+
+            return new IgraLineReader() {
+                @Override
+                public CharSequence readLine() throws IOException {
+                    return reader.readLine();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    reader.close();
+                }
+            };
+        }
+
+        throw new IllegalArgumentException("Unknown input type: " + type);
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.terentich.adjust.dataloader.io;
+
+/**
+ * The reasons of the rejected input lines.
+ */
+public enum LineError {
+    INVALID_HEADER("invalid header line"),
+    INVALID_RECORD("invalid data line"),
+    OUT_OF_RANGE("values out of range"),
+    NO_HEADER("data line without header");
+
+    private final String description;
+
+    LineError(String description) {
+        this.description = description;
+    }
+
+    public String description() {
+        return description;
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allows a few log messages per second and counts the suppressed ones, so a corrupted input does not make
+ * the logging the bottleneck. The limit is approximate: the threads race only on the window switch.
+ */
+final class LogRateLimiter {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int messagesPerWindow;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger windowMessages = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    LogRateLimiter(int messagesPerSecond) {
+        this.messagesPerWindow = messagesPerSecond;
+    }
+
+    /**
+     * @return -1 if the message must be suppressed, otherwise the amount of the messages suppressed since
+     * the previous allowed one
+     */
+    long acquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+
+        if (now - start > WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            windowMessages.set(0);
+        }
+
+        if (windowMessages.incrementAndGet() > messagesPerWindow) {
+            suppressed.incrementAndGet();
+            return -1;
+        }
+
+        return suppressed.getAndSet(0);
+    }
+}
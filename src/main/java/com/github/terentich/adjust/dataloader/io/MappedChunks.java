@@ -0,0 +1,66 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Maps a file region by region with {@link FileChannel#map}. Every region except the last one ends right before
+ * a header line, so a sounding is never split between the regions; a region grows if a sounding does not fit.
+ */
+final class MappedChunks {
+    private static final char HEADER_INDICATOR = '#';
+    private static final int MAX_REGION_SIZE = Integer.MAX_VALUE - 8;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int regionSize;
+    private long position;
+
+    MappedChunks(FileChannel channel, int regionSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.regionSize = regionSize;
+    }
+
+    /**
+     * @return the next region or {@code null} at the end of the file
+     */
+    ByteBuffer next() throws IOException {
+        long remaining = size - position;
+
+        if (remaining <= 0) {
+            return null;
+        }
+
+        int length = regionSize;
+
+        while (remaining > length) {
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int cut = lastHeaderOffset(region, length);
+
+            if (cut > 0) {
+                position += cut;
+                return region.limit(cut);
+            } else if (length == MAX_REGION_SIZE) {
+                throw new IOException("Sounding is longer than " + MAX_REGION_SIZE + " bytes at offset " + position);
+            }
+
+            length = (int) Math.min(MAX_REGION_SIZE, length * 2L);
+        }
+
+        ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, remaining);
+        position = size;
+        return region;
+    }
+
+    private static int lastHeaderOffset(ByteBuffer buffer, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            if (buffer.get(i) == HEADER_INDICATOR && (buffer.get(i - 1) == '\n' || buffer.get(i - 1) == '\r')) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+
+/**
+ * Appends the rejected input lines to a side file {@code <path>/rejected-<run>.tsv}, one line per rejected line:
+ * the input name, the line number, the reason and the line itself, separated by tabs.
+ * <p>
+ * The readers of all the inputs share the quarantine; the file is created on the first rejected line.
+ * A write failure is logged once and the next lines are not written, the load goes on.
+ */
+public class Quarantine implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(Quarantine.class);
+
+    public static final String PATH_PROPERTY = "loader.quarantine.path";
+
+    private final Path file;
+    private BufferedWriter writer;
+    private boolean failed;
+    private long lines;
+
+    public Quarantine(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the quarantine of the configured directory or {@code null} if it is not configured
+     */
+    public static Quarantine fromConfig(Properties config) {
+        String path = config.getProperty(PATH_PROPERTY);
+
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+
+        return new Quarantine(Paths.get(path.trim()).resolve("rejected-" + System.currentTimeMillis() + ".tsv"));
+    }
+
+    public synchronized void write(String input, long lineNumber, LineError error, CharSequence line) {
+        if (failed) {
+            return;
+        }
+
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.getParent());
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                log.info("Rejected lines are written to: {}", file);
+            }
+
+            writer.append(input).append('\t')
+                    .append(Long.toString(lineNumber)).append('\t')
+                    .append(error.name()).append('\t')
+                    .append(line).append('\n');
+            lines++;
+        } catch (IOException e) {
+            log.error("Unable to write rejected line to {}, next rejected lines are not written", file, e);
+            failed = true;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.close();
+            log.info("Rejected lines have been written: {} ({})", lines, file);
+        } catch (IOException e) {
+            log.error("Unable to close rejected lines file: {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.terentich.adjust.dataloader.io;
+
+import com.github.terentich.adjust.dataloader.concurrent.FingerprintSet;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+
+/**
+ * Recognizes the soundings which have already been loaded: from another input of the run (overlapping archives)
+ * or, in the incremental load, by a previous run. A sounding is identified by the station id, the date, the hour
+ * and the release time of its header. The soundings with the missing hour or release time are not identified
+ * (several soundings of a day may have them), they are never skipped.
+ * <p>
+ * The readers of all the inputs share the set of the 64-bit fingerprints of the identities. Two different
+ * soundings get the same fingerprint with a negligible probability (about 10<sup>-4</sup> for 50 million
+ * soundings), then the second one is skipped as a duplicate.
+ */
+public final class SoundingDedup {
+    private static final Logger log = LoggerFactory.getLogger(SoundingDedup.class);
+
+    public static final String PROPERTY = "loader.dedup";
+    public static final String EXPECTED_SOUNDINGS_PROPERTY = "loader.dedup.expected.soundings";
+
+    public static final int MISSING_HOUR = 99;
+    public static final int MISSING_RELTIME = 9999;
+
+    private final FingerprintSet fingerprints;
+
+    public SoundingDedup(long expectedSoundings) {
+        this.fingerprints = new FingerprintSet(expectedSoundings);
+    }
+
+    public static boolean isEnabled(Properties config) {
+        return Boolean.parseBoolean(config.getProperty(PROPERTY, "false").trim());
+    }
+
+    /**
+     * @return the deduplication or {@code null} if it is disabled
+     */
+    public static SoundingDedup fromConfig(Properties config) {
+        if (!isEnabled(config)) {
+            return null;
+        }
+
+        long expected = Long.parseLong(config.getProperty(EXPECTED_SOUNDINGS_PROPERTY, "1000000").trim());
+        log.info("Duplicate soundings are skipped (expected soundings: {})", expected);
+        return new SoundingDedup(expected);
+    }
+
+    /**
+     * @return {@code false} if the hour or the release time of the sounding is missing
+     */
+    public static boolean isIdentified(IgraHeader header) {
+        return isIdentified(header.hour(), header.reltime());
+    }
+
+    private static boolean isIdentified(int hour, int reltime) {
+        return hour != MISSING_HOUR && reltime != MISSING_RELTIME;
+    }
+
+    /**
+     * Registers the sounding, see {@link #isIdentified(IgraHeader)}.
+     *
+     * @return {@code false} if the sounding has been registered before
+     */
+    public boolean add(IgraHeader header) {
+        if (!isIdentified(header)) {
+            return true;
+        }
+
+        return fingerprints.add(fingerprint(header));
+    }
+
+    /**
+     * Forgets the sounding which has not been saved, so it is loaded again from another input or by the next run.
+     */
+    public void remove(IgraHeader header) {
+        if (isIdentified(header)) {
+            fingerprints.remove(fingerprint(header));
+        }
+    }
+
+    /**
+     * Registers a sounding of the database.
+     */
+    public void add(String id, int year, int month, int day, int hour, int reltime) {
+        if (isIdentified(hour, reltime)) {
+            fingerprints.add(fingerprint(id, year, month, day, hour, reltime));
+        }
+    }
+
+    /**
+     * Registers a fingerprint of the database, see {@link #fingerprint(IgraHeader)}.
+     */
+    public void addFingerprint(long fingerprint) {
+        fingerprints.add(fingerprint);
+    }
+
+    public long size() {
+        return fingerprints.size();
+    }
+
+    /**
+     * @return the fingerprint of the identity of an identified sounding, see {@link #isIdentified(IgraHeader)}
+     */
+    public static long fingerprint(IgraHeader header) {
+        return fingerprint(header.id(), header.year(), header.month(), header.day(), header.hour(), header.reltime());
+    }
+
+    static long fingerprint(String id, int year, int month, int day, int hour, int reltime) {
+        // FNV-1a of the station id
+        long idHash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < id.length(); i++) {
+            idHash = (idHash ^ id.charAt(i)) * 0x100000001b3L;
+        }
+
+        long time = ((((long) year * 100 + month) * 100 + day) * 100 + hour) * 10_000 + reltime;
+        return mix(idHash + mix(time));
+    }
+
+    /**
+     * The finalizer of MurmurHash3: every bit of the input affects every bit of the result.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
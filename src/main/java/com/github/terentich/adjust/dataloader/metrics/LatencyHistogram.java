@@ -0,0 +1,112 @@
+package com.github.terentich.adjust.dataloader.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with power-of-two buckets in microseconds: bucket {@code i} counts the latencies
+ * in {@code [2^(i-1), 2^i)} microseconds. The percentiles are the upper bounds of their buckets.
+ * <p>
+ * Recording is lock-free and uses striped counters, so the concurrent writers do not contend.
+ */
+public final class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int BUCKETS = 42;
+
+    private final String name;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram(String name) {
+        this.name = name;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros))].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * Records the time since {@code startNanos} ({@link System#nanoTime()}).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getTotalSeconds() {
+        return totalNanos.sum() / 1e9;
+    }
+
+    @Override
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileMillis(0.50);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return percentileMillis(0.95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileMillis(0.99);
+    }
+
+    private double percentileMillis(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets[i].sum();
+            total += snapshot[i];
+        }
+
+        long rank = (long) Math.ceil(total * percentile);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+
+            if (seen >= rank && snapshot[i] > 0) {
+                return Math.min((1L << i) / 1000.0, getMaxMillis());
+            }
+        }
+
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: count=%d, mean=%.1f ms, p50=%.1f ms, p95=%.1f ms, p99=%.1f ms, max=%.1f ms",
+                name, getCount(), getMeanMillis(), getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis());
+    }
+}
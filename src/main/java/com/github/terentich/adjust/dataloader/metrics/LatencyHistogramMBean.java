@@ -0,0 +1,20 @@
+package com.github.terentich.adjust.dataloader.metrics;
+
+/**
+ * JMX view of a {@link LatencyHistogram}.
+ */
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    double getTotalSeconds();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+}
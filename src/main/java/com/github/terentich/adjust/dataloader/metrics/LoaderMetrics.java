@@ -0,0 +1,291 @@
+package com.github.terentich.adjust.dataloader.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies of the loading pipeline stages: decompression, parsing and saving.
+ * <p>
+ * The counters are striped ({@link LongAdder}) and the hot loops publish them in blocks (the parsers every few
+ * thousand lines, the input streams per buffer read, the writers per batch), so the collection is always on.
+ * The metrics are published over JMX under the {@value #DOMAIN} domain by {@link #register()}.
+ */
+public final class LoaderMetrics implements LoaderMetricsMBean {
+    private static final Logger log = LoggerFactory.getLogger(LoaderMetrics.class);
+
+    public static final String DOMAIN = "com.github.terentich.adjust.dataloader";
+
+    private static final LoaderMetrics INSTANCE = new LoaderMetrics();
+
+    private final LongAdder decompressedBytes = new LongAdder();
+    private final LongAdder parsedLines = new LongAdder();
+    private final LongAdder failedLines = new LongAdder();
+    private final LongAdder savedRows = new LongAdder();
+    private final LongAdder savedBatches = new LongAdder();
+    private final LongAdder spooledRows = new LongAdder();
+    private final LongAdder duplicateSoundings = new LongAdder();
+    private final LongAdder duplicateLines = new LongAdder();
+    private final LongAdder completedFiles = new LongAdder();
+    private final Map<String, LongAdder> failedLinesByReason = new ConcurrentHashMap<>();
+    private final Map<String, FileProgress> files = new ConcurrentHashMap<>();
+
+    // the whole write of a batch by a writer thread (any output)
+    private final LatencyHistogram batchWrite = new LatencyHistogram("batchWrite");
+    // the database statements of a batch: executeBatch of the INSERT or COPY
+    private final LatencyHistogram executeBatch = new LatencyHistogram("executeBatch");
+    private final LatencyHistogram commit = new LatencyHistogram("commit");
+
+    private volatile long startNanos = System.nanoTime();
+    private volatile int totalFiles;
+    private volatile long totalBytes;
+
+    private LoaderMetrics() {
+    }
+
+    public static LoaderMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Publishes the metrics in the platform MBean server; the failure is logged, the load does not need JMX.
+     */
+    public void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            registerMBean(server, new ObjectName(DOMAIN + ":type=Loader"), this);
+
+            for (LatencyHistogram histogram : histograms()) {
+                registerMBean(server, new ObjectName(DOMAIN + ":type=Latency,name=" + histogram.name()), histogram);
+            }
+        } catch (JMException e) {
+            log.warn("Unable to register loader metrics in JMX", e);
+        }
+    }
+
+    private static void registerMBean(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        if (!server.isRegistered(name)) {
+            server.registerMBean(mbean, name);
+        }
+    }
+
+    /**
+     * Starts the load of the files: the progress is measured against their uncompressed size.
+     */
+    public void startLoad(int fileCount, long uncompressedBytes) {
+        startNanos = System.nanoTime();
+        totalFiles = fileCount;
+        totalBytes = uncompressedBytes;
+    }
+
+    public FileProgress startFile(String name, long uncompressedSize) {
+        FileProgress progress = new FileProgress(name, uncompressedSize);
+        files.put(progress.path, progress);
+        return progress;
+    }
+
+    public void finishFile(FileProgress progress) {
+        progress.endNanos = System.nanoTime();
+        completedFiles.increment();
+    }
+
+    public void addLines(long lines, long failed) {
+        parsedLines.add(lines);
+        failedLines.add(failed);
+    }
+
+    public void addFailedLines(String reason, long count) {
+        failedLinesByReason.computeIfAbsent(reason, key -> new LongAdder()).add(count);
+    }
+
+    public void addSavedBatch(int rows, long startNanos) {
+        batchWrite.recordSince(startNanos);
+        savedBatches.increment();
+        savedRows.add(rows);
+    }
+
+    /**
+     * Counts the rows of a batch written to the spool instead of the output (already counted as saved).
+     */
+    public void addSpooledBatch(int rows) {
+        spooledRows.add(rows);
+    }
+
+    /**
+     * Counts the soundings skipped as already loaded and their data lines.
+     */
+    public void addDuplicateSoundings(long soundings, long lines) {
+        duplicateSoundings.add(soundings);
+        duplicateLines.add(lines);
+    }
+
+    public LatencyHistogram executeBatch() {
+        return executeBatch;
+    }
+
+    public LatencyHistogram commit() {
+        return commit;
+    }
+
+    public List<LatencyHistogram> histograms() {
+        return List.of(batchWrite, executeBatch, commit);
+    }
+
+    public Collection<FileProgress> files() {
+        return new ArrayList<>(files.values());
+    }
+
+    public double elapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    /**
+     * @return the uncompressed bytes of the finished files plus the bytes read from the running ones
+     */
+    public long processedBytes() {
+        long processed = 0;
+
+        for (FileProgress file : files.values()) {
+            processed += file.isRunning() || file.size < 0 ? file.bytesRead : file.size;
+        }
+
+        return processed;
+    }
+
+    @Override
+    public int getTotalFiles() {
+        return totalFiles;
+    }
+
+    @Override
+    public int getCompletedFiles() {
+        return completedFiles.intValue();
+    }
+
+    @Override
+    public int getRunningFiles() {
+        return (int) files.values().stream().filter(FileProgress::isRunning).count();
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public long getDecompressedBytes() {
+        return decompressedBytes.sum();
+    }
+
+    @Override
+    public long getParsedLines() {
+        return parsedLines.sum();
+    }
+
+    @Override
+    public long getFailedLines() {
+        return failedLines.sum();
+    }
+
+    @Override
+    public Map<String, Long> getFailedLinesByReason() {
+        Map<String, Long> counts = new TreeMap<>();
+        failedLinesByReason.forEach((reason, count) -> counts.put(reason, count.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getSavedRows() {
+        return savedRows.sum();
+    }
+
+    @Override
+    public long getSavedBatches() {
+        return savedBatches.sum();
+    }
+
+    @Override
+    public long getSpooledRows() {
+        return spooledRows.sum();
+    }
+
+    @Override
+    public long getDuplicateSoundings() {
+        return duplicateSoundings.sum();
+    }
+
+    @Override
+    public long getDuplicateLines() {
+        return duplicateLines.sum();
+    }
+
+    @Override
+    public double getRowsPerSecond() {
+        double seconds = elapsedSeconds();
+        return seconds > 0 ? savedRows.sum() / seconds : 0;
+    }
+
+    @Override
+    public double getProgressPercent() {
+        long total = totalBytes;
+        return total > 0 ? Math.min(100.0, processedBytes() * 100.0 / total) : 0;
+    }
+
+    /**
+     * Progress of one input (a file or an archive entry). It is updated only by the thread reading the file.
+     */
+    public final class FileProgress {
+        private final String path;
+        private final long size;
+        private final long startNanos = System.nanoTime();
+        private volatile long bytesRead;
+        private volatile long endNanos;
+
+        private FileProgress(String path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        public void addBytes(long bytes) {
+            // a single writer, so the volatile increment is not lost
+            bytesRead += bytes;
+            decompressedBytes.add(bytes);
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public boolean isRunning() {
+            return endNanos == 0;
+        }
+
+        public double elapsedSeconds() {
+            long end = endNanos;
+            return ((end == 0 ? System.nanoTime() : end) - startNanos) / 1e9;
+        }
+
+        /**
+         * @return the read part of the file in percents or -1 if the size is unknown
+         */
+        public double percent() {
+            if (!isRunning()) {
+                return 100;
+            }
+
+            return size > 0 ? Math.min(100.0, bytesRead * 100.0 / size) : -1;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.terentich.adjust.dataloader.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the {@link LoaderMetrics} counters.
+ */
+public interface LoaderMetricsMBean {
+    int getTotalFiles();
+
+    int getCompletedFiles();
+
+    int getRunningFiles();
+
+    long getTotalBytes();
+
+    long getDecompressedBytes();
+
+    long getParsedLines();
+
+    long getFailedLines();
+
+    Map<String, Long> getFailedLinesByReason();
+
+    long getSavedRows();
+
+    long getSavedBatches();
+
+    long getSpooledRows();
+
+    long getDuplicateSoundings();
+
+    long getDuplicateLines();
+
+    double getRowsPerSecond();
+
+    double getProgressPercent();
+}
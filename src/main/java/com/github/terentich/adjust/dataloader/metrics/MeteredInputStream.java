@@ -0,0 +1,46 @@
+package com.github.terentich.adjust.dataloader.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from a decompressed input stream; the counters are updated once per read call.
+ */
+public final class MeteredInputStream extends FilterInputStream {
+    private final LoaderMetrics.FileProgress progress;
+
+    public MeteredInputStream(InputStream in, LoaderMetrics.FileProgress progress) {
+        super(in);
+        this.progress = progress;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+
+        if (b >= 0) {
+            progress.addBytes(1);
+        }
+
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+
+        if (read > 0) {
+            progress.addBytes(read);
+        }
+
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        progress.addBytes(skipped);
+        return skipped;
+    }
+}
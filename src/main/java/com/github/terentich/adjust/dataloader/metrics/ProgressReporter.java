@@ -0,0 +1,129 @@
+package com.github.terentich.adjust.dataloader.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Logs the load progress periodically: saved rows and rows/sec (current and average), the input progress,
+ * the ETA estimated by the decompressed bytes rate and the slowest files.
+ * The latencies of the saving stages are logged when the reporter is closed.
+ */
+public final class ProgressReporter implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ProgressReporter.class);
+
+    // seconds between the progress lines, 0 - disabled
+    public static final String INTERVAL_PROPERTY = "loader.progress.interval";
+    private static final int DEFAULT_INTERVAL = 30;
+    private static final int SLOWEST_FILES = 3;
+
+    private final LoaderMetrics metrics;
+    private final ScheduledExecutorService timer;
+    private long lastRows;
+    private double lastSeconds;
+
+    private ProgressReporter(LoaderMetrics metrics, int intervalSeconds) {
+        this.metrics = metrics;
+
+        if (intervalSeconds > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "progress-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            timer = null;
+        }
+    }
+
+    public static ProgressReporter start(Properties config, LoaderMetrics metrics) {
+        int interval = Integer.parseInt(config.getProperty(INTERVAL_PROPERTY, String.valueOf(DEFAULT_INTERVAL)).trim());
+        return new ProgressReporter(metrics, interval);
+    }
+
+    private void report() {
+        try {
+            double seconds = metrics.elapsedSeconds();
+            long rows = metrics.getSavedRows();
+            double currentRate = (rows - lastRows) / Math.max(seconds - lastSeconds, 1e-3);
+            lastRows = rows;
+            lastSeconds = seconds;
+
+            log.info("Progress: files {}/{} (running {}), saved rows {} ({} rows/sec, average {}), " +
+                     "parsed lines {} (failed {}), input {}%, ETA {}, slowest files: {}",
+                    metrics.getCompletedFiles(), metrics.getTotalFiles(), metrics.getRunningFiles(),
+                    rows, Math.round(currentRate), Math.round(metrics.getRowsPerSecond()),
+                    metrics.getParsedLines(), metrics.getFailedLines(),
+                    String.format("%.1f", metrics.getProgressPercent()), eta(seconds), slowestFiles());
+        } catch (RuntimeException e) {
+            log.warn("Unable to report progress", e);
+        }
+    }
+
+    private String eta(double seconds) {
+        long total = metrics.getTotalBytes();
+        long processed = metrics.processedBytes();
+
+        if (total <= 0 || processed <= 0) {
+            return "unknown";
+        }
+
+        long remaining = (long) (Math.max(0, total - processed) * seconds / processed);
+        Duration eta = Duration.ofSeconds(remaining);
+        return String.format("%d:%02d:%02d", eta.toHours(), eta.toMinutesPart(), eta.toSecondsPart());
+    }
+
+    private String slowestFiles() {
+        return metrics.files()
+                .stream()
+                .sorted(Comparator.comparingDouble(LoaderMetrics.FileProgress::elapsedSeconds).reversed())
+                .limit(SLOWEST_FILES)
+                .map(file -> String.format("%s (%d s%s)", file.path(), Math.round(file.elapsedSeconds()),
+                        file.isRunning()
+                                ? file.percent() < 0 ? ", running" : String.format(", %.0f%%", file.percent())
+                                : ""))
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Stops the periodic reports and logs the final one with the stage latencies.
+     */
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+
+        log.info("Load metrics: {} s, saved rows {} ({} rows/sec), decompressed bytes {}, parsed lines {} " +
+                 "(failed {})",
+                Math.round(metrics.elapsedSeconds()), metrics.getSavedRows(), Math.round(metrics.getRowsPerSecond()),
+                metrics.getDecompressedBytes(), metrics.getParsedLines(), metrics.getFailedLines());
+
+        if (metrics.getFailedLines() > 0) {
+            log.info("Failed lines by reason: {}", metrics.getFailedLinesByReason());
+        }
+
+        if (metrics.getDuplicateSoundings() > 0) {
+            log.info("Duplicate soundings skipped: {} ({} data lines)", metrics.getDuplicateSoundings(),
+                    metrics.getDuplicateLines());
+        }
+
+        if (metrics.getSpooledRows() > 0) {
+            log.warn("Spooled rows (not in the output, load them with the spool replay): {}", metrics.getSpooledRows());
+        }
+
+        for (LatencyHistogram histogram : metrics.histograms()) {
+            if (histogram.getCount() > 0) {
+                log.info("Latency {}", histogram);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.terentich.adjust.dataloader.model;
+
+/**
+ * The altitude bucket of a data record, the same as {@code thousands_altitude} of the Spark reader:
+ * <pre>
+ * when(gph % 1000 == 0, gph / 1000).otherwise(gph / 1000 + 1).cast(Int) * 1000
+ * </pre>
+ * where the division is a floating point one and the cast truncates toward zero.
+ */
+public final class AltitudeBucket {
+    public static final String COLUMN = "thousands_altitude";
+    /**
+     * The bucket of the {@code gph} column in PostgreSQL.
+     */
+    public static final String SQL = "CASE WHEN gph % 1000 = 0 THEN gph " +
+                                     "ELSE trunc(gph / 1000.0 + 1)::INTEGER * 1000 END";
+
+    private AltitudeBucket() {
+    }
+
+    public static int thousandsAltitude(int gph) {
+        if (gph % 1000 == 0) {
+            return gph;
+        }
+
+        return (int) (gph / 1000.0 + 1) * 1000;
+    }
+}
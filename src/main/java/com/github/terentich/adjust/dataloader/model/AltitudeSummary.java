@@ -0,0 +1,229 @@
+package com.github.terentich.adjust.dataloader.model;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Statistics of the data records by station, year, month and altitude bucket ({@link AltitudeBucket}):
+ * the amount of the records and the count, minimum, maximum and sum of the temperature, the relative humidity
+ * and the wind speed. The missing ({@value #MISSING}) and removed ({@value #REMOVED}) values are not counted.
+ * <p>
+ * The statistics are mergeable: two summaries of different records are combined by adding the counts and sums
+ * and taking the minimum and maximum, so the summaries of the batches saved in parallel add up to the summary
+ * of the whole data. The groups are kept sorted by the key.
+ */
+public final class AltitudeSummary {
+    public static final int MISSING = -9999;
+    public static final int REMOVED = -8888;
+
+    public static final int TEMP = 0;
+    public static final int RH = 1;
+    public static final int WSPD = 2;
+    private static final int VALUES = 3;
+
+    private final TreeMap<Key, Stats> groups = new TreeMap<>();
+
+    public static AltitudeSummary of(IgraBatch batch) {
+        AltitudeSummary summary = new AltitudeSummary();
+        summary.add(batch);
+        return summary;
+    }
+
+    public void add(IgraBatch batch) {
+        for (int i = 0; i < batch.headerCount(); i++) {
+            IgraHeader header = batch.header(i);
+            int bucket = 0;
+            Stats stats = null;
+
+            for (int row = batch.firstRow(i); row < batch.lastRow(i); row++) {
+                int rowBucket = AltitudeBucket.thousandsAltitude(batch.gph(row));
+
+                // the levels of a sounding go up, so the next record is usually in the same bucket
+                if (stats == null || rowBucket != bucket) {
+                    bucket = rowBucket;
+                    stats = groups.computeIfAbsent(new Key(header.id(), header.year(), header.month(), bucket),
+                            key -> new Stats());
+                }
+
+                stats.add(batch.temp(row), batch.rh(row), batch.wspd(row));
+            }
+        }
+    }
+
+    public void merge(AltitudeSummary other) {
+        other.groups.forEach((key, stats) -> groups.computeIfAbsent(key, k -> new Stats()).merge(stats));
+    }
+
+    public boolean isEmpty() {
+        return groups.isEmpty();
+    }
+
+    public int size() {
+        return groups.size();
+    }
+
+    /**
+     * @return the groups sorted by the key
+     */
+    public Collection<Key> keys() {
+        return groups.keySet();
+    }
+
+    public Stats stats(Key key) {
+        return groups.get(key);
+    }
+
+    private static boolean isValue(int value) {
+        return value != MISSING && value != REMOVED;
+    }
+
+    public static final class Key implements Comparable<Key> {
+        private final String id;
+        private final int year;
+        private final int month;
+        private final int thousandsAltitude;
+
+        public Key(String id, int year, int month, int thousandsAltitude) {
+            this.id = id;
+            this.year = year;
+            this.month = month;
+            this.thousandsAltitude = thousandsAltitude;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public int year() {
+            return year;
+        }
+
+        public int month() {
+            return month;
+        }
+
+        public int thousandsAltitude() {
+            return thousandsAltitude;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int result = id.compareTo(other.id);
+
+            if (result == 0) {
+                result = Integer.compare(year, other.year);
+            }
+
+            if (result == 0) {
+                result = Integer.compare(month, other.month);
+            }
+
+            return result != 0 ? result : Integer.compare(thousandsAltitude, other.thousandsAltitude);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) return true;
+            if (obj == null || obj.getClass() != this.getClass()) return false;
+            var that = (Key) obj;
+            return Objects.equals(this.id, that.id) &&
+                   this.year == that.year &&
+                   this.month == that.month &&
+                   this.thousandsAltitude == that.thousandsAltitude;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, year, month, thousandsAltitude);
+        }
+
+        @Override
+        public String toString() {
+            return "Key[" +
+                   "id=" + id + ", " +
+                   "year=" + year + ", " +
+                   "month=" + month + ", " +
+                   "thousandsAltitude=" + thousandsAltitude + ']';
+        }
+    }
+
+    /**
+     * The statistics of a group, the values are indexed by {@link #TEMP}, {@link #RH} and {@link #WSPD}.
+     */
+    public static final class Stats {
+        private long levels;
+        private final long[] counts = new long[VALUES];
+        private final int[] mins = new int[VALUES];
+        private final int[] maxs = new int[VALUES];
+        private final long[] sums = new long[VALUES];
+
+        void add(int temp, int rh, int wspd) {
+            levels++;
+            addValue(TEMP, temp);
+            addValue(RH, rh);
+            addValue(WSPD, wspd);
+        }
+
+        private void addValue(int index, int value) {
+            if (!isValue(value)) {
+                return;
+            }
+
+            if (counts[index] == 0) {
+                mins[index] = value;
+                maxs[index] = value;
+            } else {
+                mins[index] = Math.min(mins[index], value);
+                maxs[index] = Math.max(maxs[index], value);
+            }
+
+            counts[index]++;
+            sums[index] += value;
+        }
+
+        void merge(Stats other) {
+            levels += other.levels;
+
+            for (int i = 0; i < VALUES; i++) {
+                if (other.counts[i] == 0) {
+                    continue;
+                }
+
+                mins[i] = counts[i] == 0 ? other.mins[i] : Math.min(mins[i], other.mins[i]);
+                maxs[i] = counts[i] == 0 ? other.maxs[i] : Math.max(maxs[i], other.maxs[i]);
+                counts[i] += other.counts[i];
+                sums[i] += other.sums[i];
+            }
+        }
+
+        /**
+         * @return the amount of the data records
+         */
+        public long levels() {
+            return levels;
+        }
+
+        /**
+         * @return the amount of the present values
+         */
+        public long count(int value) {
+            return counts[value];
+        }
+
+        /**
+         * @return the minimal value, undefined if the count is 0
+         */
+        public int min(int value) {
+            return mins[value];
+        }
+
+        public int max(int value) {
+            return maxs[value];
+        }
+
+        public long sum(int value) {
+            return sums[value];
+        }
+    }
+}
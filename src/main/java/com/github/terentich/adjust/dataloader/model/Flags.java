@@ -0,0 +1,44 @@
+package com.github.terentich.adjust.dataloader.model;
+
+/**
+ * Encoding of the one-character QA flags (pflag, zflag, tflag): a flag is stored as its ASCII code or
+ * {@link #NONE} for an empty flag, and decoded into one shared {@code String} per code.
+ */
+public final class Flags {
+    public static final char NONE = 0;
+    public static final int CODES = 128;
+
+    private static final String[] STRINGS = new String[CODES];
+
+    static {
+        STRINGS[NONE] = "";
+        for (char c = 1; c < CODES; c++) {
+            STRINGS[c] = String.valueOf(c);
+        }
+    }
+
+    private Flags() {
+    }
+
+    public static boolean isValid(char code) {
+        return code < CODES;
+    }
+
+    /**
+     * @param code an ASCII code or {@link #NONE}
+     */
+    public static String of(char code) {
+        return isValid(code) ? STRINGS[code] : String.valueOf(code);
+    }
+
+    public static char code(String flag) {
+        return flag == null || flag.isEmpty() ? NONE : flag.charAt(0);
+    }
+
+    /**
+     * @return the shared instance of a one-character or empty flag, other values as they are
+     */
+    public static String canonical(String flag) {
+        return flag == null || flag.length() > 1 ? flag : of(code(flag));
+    }
+}
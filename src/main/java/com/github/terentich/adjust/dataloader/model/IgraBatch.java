@@ -0,0 +1,297 @@
+package com.github.terentich.adjust.dataloader.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batch of data records stored column by column in primitive arrays.
+ * <p>
+ * Every row references its sounding by an index in the small header table of the batch; the rows of a sounding
+ * are contiguous. The column types follow the table columns: {@code SMALLINT} - {@code short},
+ * {@code INTEGER} - {@code int}, flags - {@link Flags} codes.
+ * <p>
+ * The batch is meant to be allocated once and reused: {@link #clear()} keeps the arrays.
+ */
+public final class IgraBatch {
+    // the bytes of the column arrays per row
+    public static final int ROW_BYTES = 29;
+
+    private final List<IgraHeader> headers = new ArrayList<>();
+    private int[] headerFirstRows = new int[64];
+    private int size;
+
+    private int[] headerIndex;
+    private byte[] lvltyp1;
+    private byte[] lvltyp2;
+    private short[] etime;
+    private int[] press;
+    private byte[] pflag;
+    private int[] gph;
+    private byte[] zflag;
+    private short[] temp;
+    private byte[] tflag;
+    private short[] rh;
+    private short[] dpdp;
+    private short[] wdir;
+    private short[] wspd;
+
+    private LoadCheckpoint checkpoint;
+
+    public IgraBatch(int capacity) {
+        allocate(Math.max(capacity, 16));
+    }
+
+    public static IgraBatch of(List<IgraData> igraData) {
+        IgraBatch batch = new IgraBatch(igraData.stream().mapToInt(data -> data.getRecords().size()).sum());
+
+        for (IgraData data : igraData) {
+            int index = batch.addHeader(data.getHeader());
+
+            for (IgraRecord record : data.getRecords()) {
+                if (!batch.addRecord(index, record)) {
+                    throw new IllegalArgumentException("Record values are out of range: " + record);
+                }
+            }
+        }
+
+        return batch;
+    }
+
+    /**
+     * Starts a new sounding: the following records belong to this header.
+     *
+     * @return the index of the header in the batch
+     */
+    public int addHeader(IgraHeader header) {
+        int index = headers.size();
+
+        if (index == headerFirstRows.length) {
+            headerFirstRows = Arrays.copyOf(headerFirstRows, index * 2);
+        }
+
+        headers.add(header);
+        headerFirstRows[index] = size;
+        return index;
+    }
+
+    public boolean addRecord(int headerIndex, IgraRecord record) {
+        return addRecord(headerIndex,
+                record.lvltyp1(), record.lvltyp2(), record.etime(), record.press(), Flags.code(record.pflag()),
+                record.gph(), Flags.code(record.zflag()), record.temp(), Flags.code(record.tflag()),
+                record.rh(), record.dpdp(), record.wdir(), record.wspd());
+    }
+
+    /**
+     * Appends a record to the last sounding.
+     *
+     * @param headerIndex the index of the last sounding, the rows of a sounding are contiguous
+     * @return {@code false} if a value does not fit into its column, the record is not added
+     * @throws IllegalArgumentException if the header is not the last one
+     */
+    public boolean addRecord(int headerIndex,
+                             int lvltyp1, int lvltyp2, int etime, int press, char pflag,
+                             int gph, char zflag, int temp, char tflag,
+                             int rh, int dpdp, int wdir, int wspd) {
+        if (headerIndex != headers.size() - 1) {
+            throw new IllegalArgumentException("Record of header " + headerIndex + " is added after header "
+                                               + (headers.size() - 1));
+        }
+
+        if (!isByte(lvltyp1) || !isByte(lvltyp2) || !isShort(etime) || !isShort(temp) || !isShort(rh)
+            || !isShort(dpdp) || !isShort(wdir) || !isShort(wspd)
+            || !Flags.isValid(pflag) || !Flags.isValid(zflag) || !Flags.isValid(tflag)) {
+            return false;
+        }
+
+        if (size == this.headerIndex.length) {
+            allocate(size * 2);
+        }
+
+        this.headerIndex[size] = headerIndex;
+        this.lvltyp1[size] = (byte) lvltyp1;
+        this.lvltyp2[size] = (byte) lvltyp2;
+        this.etime[size] = (short) etime;
+        this.press[size] = press;
+        this.pflag[size] = (byte) pflag;
+        this.gph[size] = gph;
+        this.zflag[size] = (byte) zflag;
+        this.temp[size] = (short) temp;
+        this.tflag[size] = (byte) tflag;
+        this.rh[size] = (short) rh;
+        this.dpdp[size] = (short) dpdp;
+        this.wdir[size] = (short) wdir;
+        this.wspd[size] = (short) wspd;
+        size++;
+        return true;
+    }
+
+    /**
+     * Copies a sounding of the source batch as the new last sounding of this batch.
+     */
+    public void addSounding(IgraBatch source, int sourceHeaderIndex) {
+        int index = addHeader(source.header(sourceHeaderIndex));
+        int from = source.firstRow(sourceHeaderIndex);
+        int length = source.lastRow(sourceHeaderIndex) - from;
+
+        if (size + length > this.headerIndex.length) {
+            allocate(Math.max(size + length, size * 2));
+        }
+
+        Arrays.fill(headerIndex, size, size + length, index);
+        System.arraycopy(source.lvltyp1, from, lvltyp1, size, length);
+        System.arraycopy(source.lvltyp2, from, lvltyp2, size, length);
+        System.arraycopy(source.etime, from, etime, size, length);
+        System.arraycopy(source.press, from, press, size, length);
+        System.arraycopy(source.pflag, from, pflag, size, length);
+        System.arraycopy(source.gph, from, gph, size, length);
+        System.arraycopy(source.zflag, from, zflag, size, length);
+        System.arraycopy(source.temp, from, temp, size, length);
+        System.arraycopy(source.tflag, from, tflag, size, length);
+        System.arraycopy(source.rh, from, rh, size, length);
+        System.arraycopy(source.dpdp, from, dpdp, size, length);
+        System.arraycopy(source.wdir, from, wdir, size, length);
+        System.arraycopy(source.wspd, from, wspd, size, length);
+        size += length;
+    }
+
+    public void clear() {
+        headers.clear();
+        size = 0;
+        checkpoint = null;
+    }
+
+    /**
+     * @return the load state of the input file to commit together with the batch or {@code null}
+     */
+    public LoadCheckpoint checkpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(LoadCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public boolean isEmpty() {
+        return headers.isEmpty();
+    }
+
+    /**
+     * @return the amount of the data records
+     */
+    public int size() {
+        return size;
+    }
+
+    public int headerCount() {
+        return headers.size();
+    }
+
+    public IgraHeader header(int headerIndex) {
+        return headers.get(headerIndex);
+    }
+
+    /**
+     * @return the first row of the sounding
+     */
+    public int firstRow(int headerIndex) {
+        return headerFirstRows[headerIndex];
+    }
+
+    /**
+     * @return the row after the last row of the sounding
+     */
+    public int lastRow(int headerIndex) {
+        return headerIndex + 1 < headers.size() ? headerFirstRows[headerIndex + 1] : size;
+    }
+
+    public int headerIndex(int row) {
+        return headerIndex[row];
+    }
+
+    public IgraHeader rowHeader(int row) {
+        return headers.get(headerIndex[row]);
+    }
+
+    public int lvltyp1(int row) {
+        return lvltyp1[row];
+    }
+
+    public int lvltyp2(int row) {
+        return lvltyp2[row];
+    }
+
+    public int etime(int row) {
+        return etime[row];
+    }
+
+    public int press(int row) {
+        return press[row];
+    }
+
+    public String pflag(int row) {
+        return Flags.of((char) pflag[row]);
+    }
+
+    public int gph(int row) {
+        return gph[row];
+    }
+
+    public String zflag(int row) {
+        return Flags.of((char) zflag[row]);
+    }
+
+    public int temp(int row) {
+        return temp[row];
+    }
+
+    public String tflag(int row) {
+        return Flags.of((char) tflag[row]);
+    }
+
+    public int rh(int row) {
+        return rh[row];
+    }
+
+    public int dpdp(int row) {
+        return dpdp[row];
+    }
+
+    public int wdir(int row) {
+        return wdir[row];
+    }
+
+    public int wspd(int row) {
+        return wspd[row];
+    }
+
+    public IgraRecord record(int row) {
+        return new IgraRecord(lvltyp1(row), lvltyp2(row), etime(row), press(row), pflag(row), gph(row), zflag(row),
+                temp(row), tflag(row), rh(row), dpdp(row), wdir(row), wspd(row));
+    }
+
+    private void allocate(int capacity) {
+        headerIndex = headerIndex == null ? new int[capacity] : Arrays.copyOf(headerIndex, capacity);
+        lvltyp1 = lvltyp1 == null ? new byte[capacity] : Arrays.copyOf(lvltyp1, capacity);
+        lvltyp2 = lvltyp2 == null ? new byte[capacity] : Arrays.copyOf(lvltyp2, capacity);
+        etime = etime == null ? new short[capacity] : Arrays.copyOf(etime, capacity);
+        press = press == null ? new int[capacity] : Arrays.copyOf(press, capacity);
+        pflag = pflag == null ? new byte[capacity] : Arrays.copyOf(pflag, capacity);
+        gph = gph == null ? new int[capacity] : Arrays.copyOf(gph, capacity);
+        zflag = zflag == null ? new byte[capacity] : Arrays.copyOf(zflag, capacity);
+        temp = temp == null ? new short[capacity] : Arrays.copyOf(temp, capacity);
+        tflag = tflag == null ? new byte[capacity] : Arrays.copyOf(tflag, capacity);
+        rh = rh == null ? new short[capacity] : Arrays.copyOf(rh, capacity);
+        dpdp = dpdp == null ? new short[capacity] : Arrays.copyOf(dpdp, capacity);
+        wdir = wdir == null ? new short[capacity] : Arrays.copyOf(wdir, capacity);
+        wspd = wspd == null ? new short[capacity] : Arrays.copyOf(wspd, capacity);
+    }
+
+    private static boolean isByte(int value) {
+        return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+    }
+
+    private static boolean isShort(int value) {
+        return value >= Short.MIN_VALUE && value <= Short.MAX_VALUE;
+    }
+}
@@ -2,6 +2,10 @@ package com.github.terentich.adjust.dataloader.model;
 
 import java.util.Objects;
 
+/**
+ * The station id and the data source codes are canonicalized by {@link StringCache}: the headers of a station
+ * share the strings.
+ */
 public final class IgraHeader {
     private final String id;
     private final int year;
@@ -20,15 +24,15 @@ public final class IgraHeader {
                       int reltime, int numlev,
                       String psrc, String npsrc,
                       int lat, int lon) {
-        this.id = id;
+        this.id = StringCache.STATION_IDS.canonical(id);
         this.year = year;
         this.month = month;
         this.day = day;
         this.hour = hour;
         this.reltime = reltime;
         this.numlev = numlev;
-        this.psrc = psrc;
-        this.npsrc = npsrc;
+        this.psrc = StringCache.SOURCE_CODES.canonical(psrc);
+        this.npsrc = StringCache.SOURCE_CODES.canonical(npsrc);
         this.lat = lat;
         this.lon = lon;
     }
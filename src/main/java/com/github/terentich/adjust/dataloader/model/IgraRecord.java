@@ -25,11 +25,11 @@ public final class IgraRecord {
         this.lvltyp2 = lvltyp2;
         this.etime = etime;
         this.press = press;
-        this.pflag = pflag;
+        this.pflag = Flags.canonical(pflag);
         this.gph = gph;
-        this.zflag = zflag;
+        this.zflag = Flags.canonical(zflag);
         this.temp = temp;
-        this.tflag = tflag;
+        this.tflag = Flags.canonical(tflag);
         this.rh = rh;
         this.dpdp = dpdp;
         this.wdir = wdir;
@@ -0,0 +1,67 @@
+package com.github.terentich.adjust.dataloader.model;
+
+import java.util.Objects;
+
+/**
+ * The load state of an input file: how many soundings and data lines of it have been committed.
+ */
+public final class LoadCheckpoint {
+    private final String path;
+    private final long size;
+    private final String checksum;
+    private final int soundings;
+    private final int savedLines;
+    private final boolean completed;
+
+    public LoadCheckpoint(String path, long size, String checksum,
+                          int soundings, int savedLines, boolean completed) {
+        this.path = path;
+        this.size = size;
+        this.checksum = checksum;
+        this.soundings = soundings;
+        this.savedLines = savedLines;
+        this.completed = completed;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public String checksum() {
+        return checksum;
+    }
+
+    public int soundings() {
+        return soundings;
+    }
+
+    public int savedLines() {
+        return savedLines;
+    }
+
+    public boolean completed() {
+        return completed;
+    }
+
+    /**
+     * @return {@code true} if the checkpoint has been made for the same content of the file
+     */
+    public boolean isSameFile(long size, String checksum) {
+        return this.size == size && Objects.equals(this.checksum, checksum);
+    }
+
+    @Override
+    public String toString() {
+        return "LoadCheckpoint[" +
+               "path=" + path + ", " +
+               "size=" + size + ", " +
+               "checksum=" + checksum + ", " +
+               "soundings=" + soundings + ", " +
+               "savedLines=" + savedLines + ", " +
+               "completed=" + completed + ']';
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.terentich.adjust.dataloader.model;
+
+/**
+ * A bounded canonicalizing cache for the repeated header strings (station ids, data source codes): the equal values
+ * of all the parsed files share one {@code String}, and a hit on {@link #get(CharSequence, int, int)} does not
+ * allocate at all.
+ * <p>
+ * The table is an open-addressing array with a short probe sequence and without locks. The slots are written with
+ * a benign data race: strings are immutable, so a reader sees either {@code null} or a complete string, and the worst
+ * case of a race is a duplicate instance. A value which finds no free slot is returned uncached, so the memory stays
+ * bounded on an unexpected variety of values.
+ */
+public final class StringCache {
+    // about 2800 stations in IGRA v2
+    public static final StringCache STATION_IDS = new StringCache(16 * 1024);
+    public static final StringCache SOURCE_CODES = new StringCache(1024);
+
+    private static final int MAX_PROBES = 8;
+
+    private final String[] table;
+    private final int mask;
+
+    /**
+     * @param capacity the amount of slots, a power of two
+     */
+    public StringCache(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity is not a power of two: " + capacity);
+        }
+
+        this.table = new String[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return the cached string equal to the characters {@code [from, to)} of the sequence
+     */
+    public String get(CharSequence chars, int from, int to) {
+        int hash = 0;
+
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + chars.charAt(i);
+        }
+
+        return get(chars, from, to, hash);
+    }
+
+    /**
+     * @return the cached string equal to the value or {@code null}
+     */
+    public String canonical(String value) {
+        return value == null ? null : get(value, 0, value.length(), value.hashCode());
+    }
+
+    private String get(CharSequence chars, int from, int to, int hash) {
+        // the same hash as String.hashCode(), spread for the power-of-two table
+        int index = (hash ^ (hash >>> 16)) & mask;
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            String cached = table[index];
+
+            if (cached == null) {
+                String value = chars.subSequence(from, to).toString();
+                table[index] = value;
+                return value;
+            } else if (cached.hashCode() == hash && contentEquals(cached, chars, from, to)) {
+                return cached;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        return chars.subSequence(from, to).toString();
+    }
+
+    private static boolean contentEquals(String cached, CharSequence chars, int from, int to) {
+        if (cached.length() != to - from) {
+            return false;
+        } else if (cached == chars) {
+            return true;
+        }
+
+        for (int i = 0; i < cached.length(); i++) {
+            if (cached.charAt(i) != chars.charAt(from + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
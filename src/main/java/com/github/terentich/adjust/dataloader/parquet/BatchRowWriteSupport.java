@@ -0,0 +1,152 @@
+package com.github.terentich.adjust.dataloader.parquet;
+
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+
+import java.util.HashMap;
+
+/**
+ * Writes a row of an {@link IgraBatch} with the schema of the Spark reader output: the columns of
+ * {@code igra_data} as read over JDBC ({@code SMALLINT} and {@code INTEGER} - {@code int32},
+ * {@code VARCHAR} - {@code UTF8}); the bucket column is in the directory name, not in the file.
+ */
+class BatchRowWriteSupport extends WriteSupport<BatchRowWriteSupport.BatchRow> {
+    static final MessageType SCHEMA = MessageTypeParser.parseMessageType(
+            "message spark_schema {\n" +
+            "  required binary id (UTF8);\n" +
+            "  required int32 year;\n" +
+            "  required int32 month;\n" +
+            "  required int32 day;\n" +
+            "  required int32 hour;\n" +
+            "  required int32 reltime;\n" +
+            "  required int32 numlev;\n" +
+            "  required binary p_src (UTF8);\n" +
+            "  required binary np_src (UTF8);\n" +
+            "  required int32 lat;\n" +
+            "  required int32 lon;\n" +
+            "  required int32 lvltyp1;\n" +
+            "  required int32 lvltyp2;\n" +
+            "  required int32 etime;\n" +
+            "  required int32 press;\n" +
+            "  required binary pflag (UTF8);\n" +
+            "  required int32 gph;\n" +
+            "  required binary zflag (UTF8);\n" +
+            "  required int32 temp;\n" +
+            "  required binary tflag (UTF8);\n" +
+            "  required int32 rh;\n" +
+            "  required int32 dpdp;\n" +
+            "  required int32 wdir;\n" +
+            "  required int32 wspd;\n" +
+            "}");
+
+    private static final Binary[] FLAGS = new Binary[128];
+
+    static {
+        for (char c = 0; c < FLAGS.length; c++) {
+            FLAGS[c] = Binary.fromConstantByteArray(c == 0 ? new byte[0] : new byte[]{(byte) c});
+        }
+    }
+
+    private RecordConsumer consumer;
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(SCHEMA, new HashMap<>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.consumer = recordConsumer;
+    }
+
+    @Override
+    public void write(BatchRow batchRow) {
+        IgraBatch batch = batchRow.batch;
+        int row = batchRow.row;
+        int headerIndex = batch.headerIndex(row);
+        IgraHeader header = batch.header(headerIndex);
+
+        consumer.startMessage();
+        addBinary(0, batchRow.ids[headerIndex]);
+        addInt(1, header.year());
+        addInt(2, header.month());
+        addInt(3, header.day());
+        addInt(4, header.hour());
+        addInt(5, header.reltime());
+        addInt(6, header.numlev());
+        addBinary(7, batchRow.psrcs[headerIndex]);
+        addBinary(8, batchRow.npsrcs[headerIndex]);
+        addInt(9, header.lat());
+        addInt(10, header.lon());
+        addInt(11, batch.lvltyp1(row));
+        addInt(12, batch.lvltyp2(row));
+        addInt(13, batch.etime(row));
+        addInt(14, batch.press(row));
+        addBinary(15, flag(batch.pflag(row)));
+        addInt(16, batch.gph(row));
+        addBinary(17, flag(batch.zflag(row)));
+        addInt(18, batch.temp(row));
+        addBinary(19, flag(batch.tflag(row)));
+        addInt(20, batch.rh(row));
+        addInt(21, batch.dpdp(row));
+        addInt(22, batch.wdir(row));
+        addInt(23, batch.wspd(row));
+        consumer.endMessage();
+    }
+
+    private void addInt(int index, int value) {
+        String name = SCHEMA.getFieldName(index);
+        consumer.startField(name, index);
+        consumer.addInteger(value);
+        consumer.endField(name, index);
+    }
+
+    private void addBinary(int index, Binary value) {
+        String name = SCHEMA.getFieldName(index);
+        consumer.startField(name, index);
+        consumer.addBinary(value);
+        consumer.endField(name, index);
+    }
+
+    private static Binary flag(String flag) {
+        return flag.isEmpty() ? FLAGS[0] : FLAGS[flag.charAt(0)];
+    }
+
+    /**
+     * A cursor over the rows of a batch; the strings of the headers are encoded once per batch.
+     */
+    static final class BatchRow {
+        private IgraBatch batch;
+        private int row;
+        private Binary[] ids = new Binary[0];
+        private Binary[] psrcs = new Binary[0];
+        private Binary[] npsrcs = new Binary[0];
+
+        void reset(IgraBatch batch) {
+            this.batch = batch;
+
+            if (ids.length < batch.headerCount()) {
+                ids = new Binary[batch.headerCount()];
+                psrcs = new Binary[batch.headerCount()];
+                npsrcs = new Binary[batch.headerCount()];
+            }
+
+            for (int i = 0; i < batch.headerCount(); i++) {
+                IgraHeader header = batch.header(i);
+                ids[i] = Binary.fromString(header.id());
+                psrcs[i] = Binary.fromString(header.psrc());
+                npsrcs[i] = Binary.fromString(header.npsrc());
+            }
+        }
+
+        void setRow(int row) {
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.github.terentich.adjust.dataloader.parquet;
+
+import com.github.terentich.adjust.dataloader.db.BatchWriterPool;
+import com.github.terentich.adjust.dataloader.model.AltitudeBucket;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the batches as Parquet files laid out like the output of the Spark reader:
+ * {@code <path>/thousands_altitude=N/part-<writer>.parquet}.
+ * <p>
+ * Every writer thread has its own files in the bucket directories, so the writers do not share any state.
+ * The files are complete when the writer is closed.
+ * <p>
+ * An open file buffers up to a row group in memory, so a writer keeps at most {@code loader.parquet.max.open.files}
+ * files open: the least recently written one is closed and its bucket gets a new file when it is written again.
+ * The rows of a batch are written bucket by bucket, so a file is reopened at most once per batch.
+ * The heap needed is about the row group size times the open files times the writer threads.
+ */
+public class ParquetBatchWriter implements BatchWriterPool.BatchWriter {
+    private static final Logger log = LoggerFactory.getLogger(ParquetBatchWriter.class);
+
+    public static final String PATH_PROPERTY = "loader.parquet.path";
+    public static final String ROW_GROUP_SIZE_PROPERTY = "loader.parquet.row.group.mb";
+    public static final String COMPRESSION_PROPERTY = "loader.parquet.compression";
+    public static final String MAX_OPEN_FILES_PROPERTY = "loader.parquet.max.open.files";
+
+    private static final int DEFAULT_ROW_GROUP_SIZE_MB = 8;
+    private static final int DEFAULT_MAX_OPEN_FILES = 32;
+    private static final String DEFAULT_COMPRESSION = "snappy";
+    private static final String BUCKET_PREFIX = AltitudeBucket.COLUMN + "=";
+
+    private final Configuration hadoopConfig = new Configuration();
+    private final Path outputPath;
+    private final int writerNumber;
+    private final int rowGroupSize;
+    private final int maxOpenFiles;
+    private final CompressionCodecName compression;
+    // in the access order, the least recently written first
+    private final Map<Integer, ParquetWriter<BatchRowWriteSupport.BatchRow>> bucketWriters =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Integer, Integer> bucketFiles = new HashMap<>();
+    private final BatchRowWriteSupport.BatchRow batchRow = new BatchRowWriteSupport.BatchRow();
+    // the bucket in the high and the row in the low half, sorted to group the rows by the bucket
+    private long[] bucketRows = new long[0];
+
+    private ParquetBatchWriter(Properties config, int writerNumber) {
+        this.outputPath = outputPath(config);
+        this.writerNumber = writerNumber;
+        this.rowGroupSize = Integer.parseInt(config.getProperty(ROW_GROUP_SIZE_PROPERTY,
+                String.valueOf(DEFAULT_ROW_GROUP_SIZE_MB)).trim()) * 1024 * 1024;
+        this.maxOpenFiles = Math.max(1, Integer.parseInt(config.getProperty(MAX_OPEN_FILES_PROPERTY,
+                String.valueOf(DEFAULT_MAX_OPEN_FILES)).trim()));
+        this.compression = CompressionCodecName.fromConf(compressionName(config));
+    }
+
+    /**
+     * Removes the bucket directories of the previous run, as the overwrite mode of the Spark reader does, and
+     * creates a factory of the writers with the distinct file names.
+     */
+    public static BatchWriterPool.BatchWriterFactory factory(Properties config) throws IOException {
+        Path outputPath = outputPath(config);
+        FileSystem fileSystem = outputPath.getFileSystem(new Configuration());
+
+        if (fileSystem.exists(outputPath)) {
+            for (FileStatus status : fileSystem.listStatus(outputPath,
+                    path -> path.getName().startsWith(BUCKET_PREFIX))) {
+                log.info("Removing previous output: {}", status.getPath());
+                fileSystem.delete(status.getPath(), true);
+            }
+        }
+
+        AtomicInteger writerNumbers = new AtomicInteger();
+        return () -> new ParquetBatchWriter(config, writerNumbers.getAndIncrement());
+    }
+
+    @Override
+    public int write(IgraBatch batch) throws IOException {
+        log.debug("Writing batch data to Parquet: rows = {}", batch.size());
+        batchRow.reset(batch);
+        int rows = batch.size();
+
+        if (bucketRows.length < rows) {
+            bucketRows = new long[rows];
+        }
+
+        for (int row = 0; row < rows; row++) {
+            bucketRows[row] = (long) AltitudeBucket.thousandsAltitude(batch.gph(row)) << 32 | row;
+        }
+
+        Arrays.sort(bucketRows, 0, rows);
+        ParquetWriter<BatchRowWriteSupport.BatchRow> writer = null;
+        int writerBucket = 0;
+
+        for (int i = 0; i < rows; i++) {
+            int bucket = (int) (bucketRows[i] >> 32);
+
+            if (writer == null || bucket != writerBucket) {
+                writer = bucketWriter(bucket);
+                writerBucket = bucket;
+            }
+
+            batchRow.setRow((int) bucketRows[i]);
+            writer.write(batchRow);
+        }
+
+        return batch.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+
+        for (ParquetWriter<BatchRowWriteSupport.BatchRow> writer : bucketWriters.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+
+        bucketWriters.clear();
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private ParquetWriter<BatchRowWriteSupport.BatchRow> bucketWriter(int bucket) throws IOException {
+        ParquetWriter<BatchRowWriteSupport.BatchRow> writer = bucketWriters.get(bucket);
+
+        if (writer == null) {
+            if (bucketWriters.size() >= maxOpenFiles) {
+                closeEldestWriter();
+            }
+
+            // the first file of the bucket is part-<writer>.parquet, the next ones part-<writer>-<n>.parquet
+            int fileNumber = bucketFiles.merge(bucket, 1, Integer::sum) - 1;
+            String fileName = fileNumber == 0
+                    ? String.format("part-%05d.parquet", writerNumber)
+                    : String.format("part-%05d-%03d.parquet", writerNumber, fileNumber);
+            Path file = new Path(new Path(outputPath, BUCKET_PREFIX + bucket), fileName);
+            writer = new Builder(file)
+                    .withConf(hadoopConfig)
+                    .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                    .withCompressionCodec(compression)
+                    .withRowGroupSize(rowGroupSize)
+                    .build();
+            bucketWriters.put(bucket, writer);
+        }
+
+        return writer;
+    }
+
+    private void closeEldestWriter() throws IOException {
+        Iterator<ParquetWriter<BatchRowWriteSupport.BatchRow>> writers = bucketWriters.values().iterator();
+        ParquetWriter<BatchRowWriteSupport.BatchRow> eldest = writers.next();
+        writers.remove();
+        eldest.close();
+    }
+
+    private static Path outputPath(Properties config) {
+        String path = config.getProperty(PATH_PROPERTY);
+
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Missing Parquet output path: " + PATH_PROPERTY);
+        }
+
+        return new Path(path);
+    }
+
+    private static String compressionName(Properties config) {
+        return config.getProperty(COMPRESSION_PROPERTY, DEFAULT_COMPRESSION).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Builder extends ParquetWriter.Builder<BatchRowWriteSupport.BatchRow, Builder> {
+        private Builder(Path file) {
+            super(file);
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<BatchRowWriteSupport.BatchRow> getWriteSupport(Configuration conf) {
+            return new BatchRowWriteSupport();
+        }
+    }
+}
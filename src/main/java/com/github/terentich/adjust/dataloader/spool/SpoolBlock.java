@@ -0,0 +1,55 @@
+package com.github.terentich.adjust.dataloader.spool;
+
+import com.github.terentich.adjust.dataloader.model.LoadCheckpoint;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * A block of a spool file as an entry of {@code load_manifest}: the path {@code <file>#<offset>}, the length
+ * of the block as the size and its CRC32 as the checksum. The entry is committed with the rows of the block.
+ */
+public final class SpoolBlock {
+    private static final String SEPARATOR = "#";
+
+    private final String path;
+    private final int length;
+    private final String checksum;
+
+    SpoolBlock(Path file, long offset, int length, int checksum) {
+        this.path = pathPrefix(file) + offset;
+        this.length = length;
+        this.checksum = String.format("%08x", checksum);
+    }
+
+    /**
+     * @return the common prefix of the manifest paths of the blocks of the file
+     */
+    public static String pathPrefix(Path file) {
+        return file.toAbsolutePath() + SEPARATOR;
+    }
+
+    public String path() {
+        return path;
+    }
+
+    /**
+     * @return {@code true} if the manifest has the checkpoint of the same block
+     */
+    public boolean isCommitted(Map<String, LoadCheckpoint> manifest) {
+        LoadCheckpoint checkpoint = manifest.get(path);
+        return checkpoint != null && checkpoint.completed() && checkpoint.isSameFile(length, checksum);
+    }
+
+    /**
+     * @return the checkpoint to be committed with the rows of the block
+     */
+    public LoadCheckpoint checkpoint(int soundings) {
+        return new LoadCheckpoint(path, length, checksum, soundings, 0, true);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
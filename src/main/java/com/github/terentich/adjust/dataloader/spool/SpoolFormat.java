@@ -0,0 +1,31 @@
+package com.github.terentich.adjust.dataloader.spool;
+
+/**
+ * Layout of the spool files: a file header (magic, version) and a sequence of blocks, one block per batch:
+ * <pre>
+ * int    payload length
+ * byte[] payload: int rows, int soundings,
+ *                 per sounding: id, year, month, day, hour, reltime, numlev, psrc, npsrc, lat, lon, rows,
+ *                 the columns of all rows one after another: lvltyp1, lvltyp2, etime, press, pflag,
+ *                 gph, zflag, temp, tflag, rh, dpdp, wdir, wspd
+ * int    CRC32 of the payload
+ * </pre>
+ * The numbers are big-endian, the strings are a length byte and ASCII characters, the columns have
+ * the types of the {@link com.github.terentich.adjust.dataloader.model.IgraBatch} arrays.
+ */
+final class SpoolFormat {
+    static final String EXTENSION = ".spool";
+    static final int MAGIC = 0x49475350; // "IGSP"
+    static final int VERSION = 1;
+    static final int FILE_HEADER_BYTES = 8;
+    static final int BLOCK_FRAME_BYTES = 8;
+
+    // lvltyp1, lvltyp2, etime, press, pflag, gph, zflag, temp, tflag, rh, dpdp, wdir, wspd
+    static final int ROW_BYTES = 1 + 1 + 2 + 4 + 1 + 4 + 1 + 2 + 1 + 2 + 2 + 2 + 2;
+    // the ints of a sounding without the strings
+    static final int SOUNDING_BYTES = 9 * 4;
+    static final int MAX_STRING_LENGTH = 255;
+
+    private SpoolFormat() {
+    }
+}
@@ -0,0 +1,207 @@
+package com.github.terentich.adjust.dataloader.spool;
+
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the batches of a spool file written by {@link SpoolWriter} sequentially, verifying the checksum of every
+ * block. A truncated or damaged block fails the read; the blocks before it have been returned already.
+ */
+public class SpoolReader implements AutoCloseable {
+    private final Path file;
+    private final FileChannel channel;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer frame = ByteBuffer.allocate(SpoolFormat.BLOCK_FRAME_BYTES / 2);
+    private ByteBuffer payload = ByteBuffer.allocate(0);
+    private int blocks;
+    private SpoolBlock block;
+
+    public SpoolReader(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        ByteBuffer header = ByteBuffer.allocate(SpoolFormat.FILE_HEADER_BYTES);
+
+        if (!readFully(header) || header.getInt() != SpoolFormat.MAGIC) {
+            channel.close();
+            throw new IOException("Not a spool file: " + file);
+        }
+
+        int version = header.getInt();
+
+        if (version != SpoolFormat.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported spool version " + version + ": " + file);
+        }
+    }
+
+    /**
+     * @return the spool files of the path (a file or a directory with subdirectories) sorted by name
+     */
+    public static List<Path> scan(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            return files
+                    .filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().endsWith(SpoolFormat.EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads the next block into the empty batch.
+     *
+     * @return {@code false} at the end of the file
+     */
+    public boolean read(IgraBatch batch) throws IOException {
+        block = null;
+        long blockOffset = channel.position();
+        frame.clear();
+
+        if (!readFully(frame)) {
+            if (frame.position() == 0) {
+                return false;
+            }
+
+            throw truncated();
+        }
+
+        int length = frame.getInt();
+
+        if (length < 8) {
+            throw new IOException("Damaged spool block " + blocks + " (length " + length + "): " + file);
+        } else if (length + 4L > channel.size() - channel.position()) {
+            throw truncated();
+        }
+
+        if (payload.capacity() < length + 4) {
+            payload = ByteBuffer.allocate(length + 4);
+        }
+
+        payload.clear().limit(length + 4);
+
+        if (!readFully(payload)) {
+            throw truncated();
+        }
+
+        crc.reset();
+        crc.update(payload.duplicate().limit(length));
+
+        if (payload.getInt(length) != (int) crc.getValue()) {
+            throw new IOException("Checksum mismatch in spool block " + blocks + ": " + file);
+        }
+
+        block = new SpoolBlock(file, blockOffset, SpoolFormat.BLOCK_FRAME_BYTES + length, payload.getInt(length));
+        payload.limit(length);
+        decode(payload, batch);
+        blocks++;
+        return true;
+    }
+
+    /**
+     * @return the last block read or {@code null} if it has not been read successfully
+     */
+    public SpoolBlock block() {
+        return block;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static void decode(ByteBuffer in, IgraBatch batch) {
+        int rows = in.getInt();
+        int soundings = in.getInt();
+        IgraHeader[] headers = new IgraHeader[soundings];
+        int[] headerRows = new int[soundings];
+
+        for (int i = 0; i < soundings; i++) {
+            String id = getString(in);
+            int year = in.getInt();
+            int month = in.getInt();
+            int day = in.getInt();
+            int hour = in.getInt();
+            int reltime = in.getInt();
+            int numlev = in.getInt();
+            String psrc = getString(in);
+            String npsrc = getString(in);
+            int lat = in.getInt();
+            int lon = in.getInt();
+            headerRows[i] = in.getInt();
+            headers[i] = new IgraHeader(id, year, month, day, hour, reltime, numlev, psrc, npsrc, lat, lon);
+        }
+
+        // the offsets of the columns, see SpoolFormat
+        int lvltyp1 = in.position();
+        int lvltyp2 = lvltyp1 + rows;
+        int etime = lvltyp2 + rows;
+        int press = etime + rows * 2;
+        int pflag = press + rows * 4;
+        int gph = pflag + rows;
+        int zflag = gph + rows * 4;
+        int temp = zflag + rows;
+        int tflag = temp + rows * 2;
+        int rh = tflag + rows;
+        int dpdp = rh + rows * 2;
+        int wdir = dpdp + rows * 2;
+        int wspd = wdir + rows * 2;
+
+        if (wspd + rows * 2 != in.limit()) {
+            throw new IllegalStateException("Spool block size does not match its rows: " + rows);
+        }
+
+        int row = 0;
+
+        for (int i = 0; i < soundings; i++) {
+            int headerIndex = batch.addHeader(headers[i]);
+
+            for (int end = row + headerRows[i]; row < end; row++) {
+                batch.addRecord(headerIndex,
+                        in.get(lvltyp1 + row), in.get(lvltyp2 + row), in.getShort(etime + row * 2),
+                        in.getInt(press + row * 4), (char) in.get(pflag + row),
+                        in.getInt(gph + row * 4), (char) in.get(zflag + row),
+                        in.getShort(temp + row * 2), (char) in.get(tflag + row),
+                        in.getShort(rh + row * 2), in.getShort(dpdp + row * 2),
+                        in.getShort(wdir + row * 2), in.getShort(wspd + row * 2));
+            }
+        }
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.get() & 0xFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private IOException truncated() {
+        return new EOFException("Truncated spool block " + blocks + ": " + file);
+    }
+
+    /**
+     * @return {@code false} if the end of the file is reached before the buffer is full
+     */
+    private boolean readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+
+        buffer.flip();
+        return true;
+    }
+}
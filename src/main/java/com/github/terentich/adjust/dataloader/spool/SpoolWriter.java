@@ -0,0 +1,270 @@
+package com.github.terentich.adjust.dataloader.spool;
+
+import com.github.terentich.adjust.dataloader.db.BatchWriterPool;
+import com.github.terentich.adjust.dataloader.metrics.LoaderMetrics;
+import com.github.terentich.adjust.dataloader.model.Flags;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Appends the parsed batches to a local spool file ({@link SpoolFormat}), so they can be loaded into the database
+ * later by {@link com.github.terentich.adjust.dataloader.SpoolReplay} without reading and parsing the inputs again.
+ * <p>
+ * Every writer thread has its own file, created on the first batch; the file is forced to the disk when
+ * the writer is closed.
+ */
+public class SpoolWriter implements BatchWriterPool.BatchWriter {
+    private static final Logger log = LoggerFactory.getLogger(SpoolWriter.class);
+
+    public static final String PATH_PROPERTY = "loader.spool.path";
+
+    /**
+     * The time after a failure of the primary writer before it is opened again.
+     */
+    public static final long RETRY_INTERVAL_MS = 30_000;
+
+    private final Path file;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer frame = ByteBuffer.allocate(SpoolFormat.BLOCK_FRAME_BYTES / 2);
+    private final ByteBuffer checksum = ByteBuffer.allocate(SpoolFormat.BLOCK_FRAME_BYTES / 2);
+    private ByteBuffer payload = ByteBuffer.allocate(0);
+    private FileChannel channel;
+
+    public SpoolWriter(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return {@code true} if the spool path is configured
+     */
+    public static boolean isConfigured(Properties config) {
+        String path = config.getProperty(PATH_PROPERTY);
+        return path != null && !path.isBlank();
+    }
+
+    /**
+     * Creates a factory of the writers with distinct file names: {@code <path>/batches-<run>-<writer>.spool},
+     * the files of the previous runs are kept.
+     */
+    public static BatchWriterPool.BatchWriterFactory factory(Properties config) throws IOException {
+        if (!isConfigured(config)) {
+            throw new IllegalArgumentException("Missing spool path: " + PATH_PROPERTY);
+        }
+
+        Path directory = Files.createDirectories(Paths.get(config.getProperty(PATH_PROPERTY).trim()));
+        long run = System.currentTimeMillis();
+        AtomicInteger writerNumbers = new AtomicInteger();
+
+        return () -> new SpoolWriter(directory.resolve(
+                String.format("batches-%d-%03d%s", run, writerNumbers.getAndIncrement(), SpoolFormat.EXTENSION)));
+    }
+
+    /**
+     * Saves the batches with the primary writers and spools them when a primary writer is unavailable or fails.
+     * After a failure the batches of the writer are spooled, the primary writer is opened again on the first batch
+     * after {@link #RETRY_INTERVAL_MS}. A spooled batch is reported as saved, but its checkpoint is not stored,
+     * so the failover must not be used in the incremental load: the next batches of the file would commit
+     * the checkpoints covering the spooled soundings.
+     */
+    public static BatchWriterPool.BatchWriterFactory failover(BatchWriterPool.BatchWriterFactory primary,
+                                                              BatchWriterPool.BatchWriterFactory spool) {
+        return () -> new FailoverWriter(primary, spool);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    @Override
+    public int write(IgraBatch batch) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            ByteBuffer header = ByteBuffer.allocate(SpoolFormat.FILE_HEADER_BYTES);
+            header.putInt(SpoolFormat.MAGIC).putInt(SpoolFormat.VERSION).flip();
+            writeFully(header);
+            log.info("Spooling batches to file: {}", file);
+        }
+
+        encode(batch);
+
+        crc.reset();
+        crc.update(payload.duplicate());
+        frame.clear();
+        frame.putInt(payload.remaining()).flip();
+        checksum.clear();
+        checksum.putInt((int) crc.getValue()).flip();
+
+        writeFully(frame);
+        writeFully(payload);
+        writeFully(checksum);
+        return batch.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            try {
+                channel.force(true);
+            } finally {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void encode(IgraBatch batch) {
+        int rows = batch.size();
+        int soundings = batch.headerCount();
+        long length = 8 + (long) soundings * SpoolFormat.SOUNDING_BYTES + (long) rows * SpoolFormat.ROW_BYTES;
+
+        for (int i = 0; i < soundings; i++) {
+            IgraHeader header = batch.header(i);
+            length += 3 + header.id().length() + header.psrc().length() + header.npsrc().length();
+        }
+
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Batch is too large for a spool block: " + rows + " rows");
+        }
+
+        if (payload.capacity() < length) {
+            payload = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE, Math.max(length, length * 5 / 4)));
+        }
+
+        ByteBuffer out = payload;
+        out.clear();
+        out.putInt(rows).putInt(soundings);
+
+        for (int i = 0; i < soundings; i++) {
+            IgraHeader header = batch.header(i);
+            putString(out, header.id());
+            out.putInt(header.year()).putInt(header.month()).putInt(header.day()).putInt(header.hour())
+                    .putInt(header.reltime()).putInt(header.numlev());
+            putString(out, header.psrc());
+            putString(out, header.npsrc());
+            out.putInt(header.lat()).putInt(header.lon()).putInt(batch.lastRow(i) - batch.firstRow(i));
+        }
+
+        for (int row = 0; row < rows; row++) out.put((byte) batch.lvltyp1(row));
+        for (int row = 0; row < rows; row++) out.put((byte) batch.lvltyp2(row));
+        for (int row = 0; row < rows; row++) out.putShort((short) batch.etime(row));
+        for (int row = 0; row < rows; row++) out.putInt(batch.press(row));
+        for (int row = 0; row < rows; row++) out.put((byte) Flags.code(batch.pflag(row)));
+        for (int row = 0; row < rows; row++) out.putInt(batch.gph(row));
+        for (int row = 0; row < rows; row++) out.put((byte) Flags.code(batch.zflag(row)));
+        for (int row = 0; row < rows; row++) out.putShort((short) batch.temp(row));
+        for (int row = 0; row < rows; row++) out.put((byte) Flags.code(batch.tflag(row)));
+        for (int row = 0; row < rows; row++) out.putShort((short) batch.rh(row));
+        for (int row = 0; row < rows; row++) out.putShort((short) batch.dpdp(row));
+        for (int row = 0; row < rows; row++) out.putShort((short) batch.wdir(row));
+        for (int row = 0; row < rows; row++) out.putShort((short) batch.wspd(row));
+
+        out.flip();
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value.length() > SpoolFormat.MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("Value is too long for the spool: " + value);
+        }
+
+        out.put((byte) value.length());
+        out.put(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * A primary writer falling back to a spool writer.
+     */
+    private static final class FailoverWriter implements BatchWriterPool.BatchWriter {
+        private final BatchWriterPool.BatchWriterFactory primaryFactory;
+        private final BatchWriterPool.BatchWriterFactory spoolFactory;
+        private BatchWriterPool.BatchWriter primary;
+        private BatchWriterPool.BatchWriter spool;
+        private long retryTime;
+
+        private FailoverWriter(BatchWriterPool.BatchWriterFactory primaryFactory,
+                               BatchWriterPool.BatchWriterFactory spoolFactory) {
+            this.primaryFactory = primaryFactory;
+            this.spoolFactory = spoolFactory;
+            openPrimary();
+        }
+
+        @Override
+        public int write(IgraBatch batch) throws Exception {
+            if (primary == null && System.currentTimeMillis() >= retryTime) {
+                openPrimary();
+            }
+
+            if (primary != null) {
+                try {
+                    return primary.write(batch);
+                } catch (Exception e) {
+                    log.error("Unable to save batch, batches of the writer are spooled for {} seconds",
+                            RETRY_INTERVAL_MS / 1000, e);
+                    closePrimary();
+                    retryTime = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+                }
+            }
+
+            if (spool == null) {
+                spool = spoolFactory.open();
+            }
+
+            int rows = spool.write(batch);
+            LoaderMetrics.get().addSpooledBatch(rows);
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException, SQLException {
+            closePrimary();
+
+            if (spool != null) {
+                spool.close();
+            }
+        }
+
+        private void openPrimary() {
+            try {
+                primary = primaryFactory.open();
+            } catch (Exception e) {
+                log.error("Unable to open batch writer, batches are spooled for {} seconds",
+                        RETRY_INTERVAL_MS / 1000, e);
+                retryTime = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+            }
+        }
+
+        private void closePrimary() {
+            if (primary == null) {
+                return;
+            }
+
+            try {
+                primary.close();
+            } catch (Exception e) {
+                log.warn("Unable to close batch writer", e);
+            }
+
+            primary = null;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.terentich.adjust.dataloader.store;
+
+import com.github.terentich.adjust.dataloader.model.AltitudeSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read-only local store of the data written by {@link StoreWriter}: the segment files of a directory mapped into
+ * memory, queried without a database.
+ * <p>
+ * The index is kept on the heap: for every station the ranges of its soundings in the segments. In a segment
+ * the soundings of a station are sorted by the time, so a date range is found by a binary search. Only the time
+ * range is served by the index: the altitude range is checked level by level in every sounding of the station
+ * and the dates, so a query by the altitude alone scans all the soundings of the station. The results
+ * are {@link SoundingLevels} views of the mapped segments, sorted by the time.
+ * <p>
+ * The segments written after the store has been opened are not seen. The mappings are released by the garbage
+ * collector when the store is not referenced any more.
+ */
+public final class IgraStore implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(IgraStore.class);
+
+    private static final Comparator<SoundingLevels> TIME_ORDER = Comparator.comparingInt(SoundingLevels::date)
+            .thenComparingInt(SoundingLevels::hour)
+            .thenComparingInt(SoundingLevels::reltime);
+
+    private final List<StoreSegment> segments;
+    private final Map<String, List<StationRange>> stations;
+
+    private IgraStore(List<StoreSegment> segments, Map<String, List<StationRange>> stations) {
+        this.segments = segments;
+        this.stations = stations;
+    }
+
+    /**
+     * Maps all the segments of the directory.
+     */
+    public static IgraStore open(Path directory) throws IOException {
+        List<Path> files;
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths.filter(path -> path.getFileName().toString().endsWith(StoreFormat.EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        List<StoreSegment> segments = new ArrayList<>(files.size());
+        Map<String, List<StationRange>> stations = new HashMap<>();
+        long rows = 0;
+
+        for (Path file : files) {
+            StoreSegment segment = StoreSegment.open(file);
+            segments.add(segment);
+            rows += segment.rowCount();
+
+            for (int station = 0; station < segment.stationCount(); station++) {
+                stations.computeIfAbsent(segment.stationId(station), id -> new ArrayList<>(1))
+                        .add(new StationRange(segment, segment.firstSounding(station),
+                                segment.firstSounding(station) + segment.stationSoundings(station)));
+            }
+        }
+
+        log.info("Store has been opened: {} (segments: {}, stations: {}, rows: {})",
+                directory, segments.size(), stations.size(), rows);
+        return new IgraStore(segments, stations);
+    }
+
+    public Set<String> stations() {
+        return Collections.unmodifiableSet(stations.keySet());
+    }
+
+    /**
+     * @return all the levels of the soundings of the station from one date to another (inclusive)
+     */
+    public List<SoundingLevels> soundings(String station, LocalDate from, LocalDate to) {
+        return levels(station, from, to, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the levels of all the soundings of the station in the altitude range, see
+     * {@link #levels(String, LocalDate, LocalDate, int, int)}; all the soundings of the station are scanned
+     */
+    public List<SoundingLevels> levels(String station, int minGph, int maxGph) {
+        return levels(station, LocalDate.of(0, 1, 1), LocalDate.of(9999, 12, 31), minGph, maxGph);
+    }
+
+    /**
+     * Finds the levels of the soundings of the station from one date to another (inclusive) in the range of
+     * the geopotential height (inclusive). The levels of a sounding go up, so the levels in the range are
+     * contiguous: from the first level at or above the lower bound to the last level at or below the upper bound,
+     * the levels without the height between them are included. The soundings without such levels are skipped.
+     */
+    public List<SoundingLevels> levels(String station, LocalDate from, LocalDate to, int minGph, int maxGph) {
+        List<StationRange> ranges = stations.get(station);
+
+        if (ranges == null) {
+            return List.of();
+        }
+
+        int fromDate = StoreFormat.date(from.getYear(), from.getMonthValue(), from.getDayOfMonth());
+        int toDate = StoreFormat.date(to.getYear(), to.getMonthValue(), to.getDayOfMonth());
+        boolean allLevels = minGph == Integer.MIN_VALUE && maxGph == Integer.MAX_VALUE;
+        List<SoundingLevels> result = new ArrayList<>();
+
+        for (StationRange range : ranges) {
+            StoreSegment segment = range.segment;
+
+            for (int sounding = segment.lowerBound(range.firstSounding, range.endSounding, fromDate);
+                 sounding < range.endSounding && segment.date(sounding) <= toDate; sounding++) {
+                int firstRow = segment.firstRow(sounding);
+                int endRow = firstRow + segment.rows(sounding);
+
+                if (!allLevels) {
+                    int first = firstRow;
+                    int last = endRow - 1;
+
+                    while (first < endRow && !isAbove(segment.intValue(StoreFormat.GPH, first), minGph)) {
+                        first++;
+                    }
+
+                    while (last >= first && !isBelow(segment.intValue(StoreFormat.GPH, last), maxGph)) {
+                        last--;
+                    }
+
+                    if (first > last) {
+                        continue;
+                    }
+
+                    firstRow = first;
+                    endRow = last + 1;
+                }
+
+                result.add(new SoundingLevels(station, segment, sounding, firstRow, endRow - firstRow));
+            }
+        }
+
+        if (ranges.size() > 1) {
+            result.sort(TIME_ORDER);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void close() {
+        segments.clear();
+        stations.clear();
+    }
+
+    private static boolean isAbove(int gph, int minGph) {
+        return isHeight(gph) && gph >= minGph;
+    }
+
+    private static boolean isBelow(int gph, int maxGph) {
+        return isHeight(gph) && gph <= maxGph;
+    }
+
+    private static boolean isHeight(int gph) {
+        return gph != AltitudeSummary.MISSING && gph != AltitudeSummary.REMOVED;
+    }
+
+    /**
+     * The soundings of a station in a segment.
+     */
+    private static final class StationRange {
+        private final StoreSegment segment;
+        private final int firstSounding;
+        private final int endSounding;
+
+        private StationRange(StoreSegment segment, int firstSounding, int endSounding) {
+            this.segment = segment;
+            this.firstSounding = firstSounding;
+            this.endSounding = endSounding;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.terentich.adjust.dataloader.store;
+
+import com.github.terentich.adjust.dataloader.model.Flags;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import com.github.terentich.adjust.dataloader.model.IgraRecord;
+
+/**
+ * A range of the levels of a sounding in the {@link IgraStore}. The values are read from the mapped segment
+ * on every call; a level is addressed by its index in the range, from {@code 0} to {@link #size()}.
+ */
+public final class SoundingLevels {
+    private final String id;
+    private final StoreSegment segment;
+    private final int sounding;
+    private final int firstRow;
+    private final int size;
+
+    SoundingLevels(String id, StoreSegment segment, int sounding, int firstRow, int size) {
+        this.id = id;
+        this.segment = segment;
+        this.sounding = sounding;
+        this.firstRow = firstRow;
+        this.size = size;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public int year() {
+        return segment.date(sounding) / 10_000;
+    }
+
+    public int month() {
+        return segment.date(sounding) / 100 % 100;
+    }
+
+    public int day() {
+        return segment.date(sounding) % 100;
+    }
+
+    public int hour() {
+        return segment.hour(sounding);
+    }
+
+    public int reltime() {
+        return segment.reltime(sounding);
+    }
+
+    public int numlev() {
+        return segment.numlev(sounding);
+    }
+
+    public String psrc() {
+        return segment.psrc(sounding);
+    }
+
+    public String npsrc() {
+        return segment.npsrc(sounding);
+    }
+
+    public int lat() {
+        return segment.lat(sounding);
+    }
+
+    public int lon() {
+        return segment.lon(sounding);
+    }
+
+    public IgraHeader header() {
+        return new IgraHeader(id, year(), month(), day(), hour(), reltime(), numlev(), psrc(), npsrc(), lat(), lon());
+    }
+
+    /**
+     * @return the amount of the levels in the range
+     */
+    public int size() {
+        return size;
+    }
+
+    public int lvltyp1(int level) {
+        return segment.byteValue(StoreFormat.LVLTYP1, row(level));
+    }
+
+    public int lvltyp2(int level) {
+        return segment.byteValue(StoreFormat.LVLTYP2, row(level));
+    }
+
+    public int etime(int level) {
+        return segment.shortValue(StoreFormat.ETIME, row(level));
+    }
+
+    public int press(int level) {
+        return segment.intValue(StoreFormat.PRESS, row(level));
+    }
+
+    public String pflag(int level) {
+        return Flags.of((char) segment.byteValue(StoreFormat.PFLAG, row(level)));
+    }
+
+    public int gph(int level) {
+        return segment.intValue(StoreFormat.GPH, row(level));
+    }
+
+    public String zflag(int level) {
+        return Flags.of((char) segment.byteValue(StoreFormat.ZFLAG, row(level)));
+    }
+
+    public int temp(int level) {
+        return segment.shortValue(StoreFormat.TEMP, row(level));
+    }
+
+    public String tflag(int level) {
+        return Flags.of((char) segment.byteValue(StoreFormat.TFLAG, row(level)));
+    }
+
+    public int rh(int level) {
+        return segment.shortValue(StoreFormat.RH, row(level));
+    }
+
+    public int dpdp(int level) {
+        return segment.shortValue(StoreFormat.DPDP, row(level));
+    }
+
+    public int wdir(int level) {
+        return segment.shortValue(StoreFormat.WDIR, row(level));
+    }
+
+    public int wspd(int level) {
+        return segment.shortValue(StoreFormat.WSPD, row(level));
+    }
+
+    public IgraRecord record(int level) {
+        return new IgraRecord(lvltyp1(level), lvltyp2(level), etime(level), press(level), pflag(level), gph(level),
+                zflag(level), temp(level), tflag(level), rh(level), dpdp(level), wdir(level), wspd(level));
+    }
+
+    int date() {
+        return segment.date(sounding);
+    }
+
+    private int row(int level) {
+        if (level < 0 || level >= size) {
+            throw new IndexOutOfBoundsException("Level " + level + " of " + size);
+        }
+
+        return firstRow + level;
+    }
+
+    @Override
+    public String toString() {
+        return "SoundingLevels[" +
+               "id=" + id + ", " +
+               "date=" + date() + ", " +
+               "hour=" + hour() + ", " +
+               "reltime=" + reltime() + ", " +
+               "levels=" + size + ']';
+    }
+}
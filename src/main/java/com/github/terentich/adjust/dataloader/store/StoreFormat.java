@@ -0,0 +1,84 @@
+package com.github.terentich.adjust.dataloader.store;
+
+/**
+ * Layout of the store segment files, the numbers are big-endian:
+ * <pre>
+ * header:    int magic, int version, int stations, int soundings, int rows, int reserved
+ * stations:  sorted by the id; byte[12] id, int first sounding, int soundings
+ * soundings: sorted by the station and the time; int date (yyyymmdd), int hour, int reltime, int numlev,
+ *            byte[8] psrc, byte[8] npsrc, int lat, int lon, int first row, int rows
+ * columns:   the columns of all rows one after another, each starting at a multiple of 8 bytes:
+ *            lvltyp1, lvltyp2, etime, press, pflag, gph, zflag, temp, tflag, rh, dpdp, wdir, wspd
+ * </pre>
+ * The strings are ASCII padded with zeros, the columns have the types of the
+ * {@link com.github.terentich.adjust.dataloader.model.IgraBatch} arrays. The offsets of the sections follow from
+ * the amounts in the header.
+ */
+final class StoreFormat {
+    static final String EXTENSION = ".igs";
+    static final int MAGIC = 0x49475354; // "IGST"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+
+    static final int ID_BYTES = 12;
+    static final int SOURCE_BYTES = 8;
+    static final int STATION_BYTES = ID_BYTES + 8;
+
+    // the fields of a sounding
+    static final int DATE = 0;
+    static final int HOUR = 4;
+    static final int RELTIME = 8;
+    static final int NUMLEV = 12;
+    static final int PSRC = 16;
+    static final int NPSRC = PSRC + SOURCE_BYTES;
+    static final int LAT = NPSRC + SOURCE_BYTES;
+    static final int LON = LAT + 4;
+    static final int FIRST_ROW = LON + 4;
+    static final int ROWS = FIRST_ROW + 4;
+    static final int SOUNDING_BYTES = ROWS + 4;
+
+    // the columns
+    static final int LVLTYP1 = 0;
+    static final int LVLTYP2 = 1;
+    static final int ETIME = 2;
+    static final int PRESS = 3;
+    static final int PFLAG = 4;
+    static final int GPH = 5;
+    static final int ZFLAG = 6;
+    static final int TEMP = 7;
+    static final int TFLAG = 8;
+    static final int RH = 9;
+    static final int DPDP = 10;
+    static final int WDIR = 11;
+    static final int WSPD = 12;
+    static final int[] COLUMN_BYTES = {1, 1, 2, 4, 1, 4, 1, 2, 1, 2, 2, 2, 2};
+    static final int COLUMNS = COLUMN_BYTES.length;
+
+    private StoreFormat() {
+    }
+
+    static long soundingsOffset(int stations) {
+        return align(HEADER_BYTES + (long) stations * STATION_BYTES);
+    }
+
+    /**
+     * @return the offset of the column; the offset of {@link #COLUMNS} is the size of the file
+     */
+    static long columnOffset(int column, int stations, int soundings, int rows) {
+        long offset = align(soundingsOffset(stations) + (long) soundings * SOUNDING_BYTES);
+
+        for (int i = 0; i < column; i++) {
+            offset = align(offset + (long) rows * COLUMN_BYTES[i]);
+        }
+
+        return offset;
+    }
+
+    static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    static int date(int year, int month, int day) {
+        return (year * 100 + month) * 100 + day;
+    }
+}
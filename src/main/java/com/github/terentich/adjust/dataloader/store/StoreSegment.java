@@ -0,0 +1,176 @@
+package com.github.terentich.adjust.dataloader.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A segment file of the store mapped into memory: the values are read from the mapping on every call,
+ * nothing is copied to the heap.
+ */
+final class StoreSegment {
+    private final Path file;
+    private final ByteBuffer data;
+    private final int stations;
+    private final int soundings;
+    private final int rows;
+    private final int soundingsOffset;
+    private final int[] columnOffsets = new int[StoreFormat.COLUMNS];
+
+    private StoreSegment(Path file, ByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+
+        if (data.capacity() < StoreFormat.HEADER_BYTES || data.getInt(0) != StoreFormat.MAGIC) {
+            throw new IOException("Not a store segment: " + file);
+        } else if (data.getInt(4) != StoreFormat.VERSION) {
+            throw new IOException("Unsupported store segment version " + data.getInt(4) + ": " + file);
+        }
+
+        this.stations = data.getInt(8);
+        this.soundings = data.getInt(12);
+        this.rows = data.getInt(16);
+
+        if (data.capacity() < StoreFormat.columnOffset(StoreFormat.COLUMNS, stations, soundings, rows)) {
+            throw new IOException("Store segment is truncated: " + file);
+        }
+
+        this.soundingsOffset = (int) StoreFormat.soundingsOffset(stations);
+
+        for (int column = 0; column < StoreFormat.COLUMNS; column++) {
+            columnOffsets[column] = (int) StoreFormat.columnOffset(column, stations, soundings, rows);
+        }
+    }
+
+    static StoreSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Store segment is too large: " + file);
+            }
+
+            // the mapping stays valid after the channel is closed
+            return new StoreSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    Path file() {
+        return file;
+    }
+
+    int stationCount() {
+        return stations;
+    }
+
+    int soundingCount() {
+        return soundings;
+    }
+
+    int rowCount() {
+        return rows;
+    }
+
+    String stationId(int station) {
+        return ascii(StoreFormat.HEADER_BYTES + station * StoreFormat.STATION_BYTES, StoreFormat.ID_BYTES);
+    }
+
+    int firstSounding(int station) {
+        return data.getInt(StoreFormat.HEADER_BYTES + station * StoreFormat.STATION_BYTES + StoreFormat.ID_BYTES);
+    }
+
+    int stationSoundings(int station) {
+        return data.getInt(StoreFormat.HEADER_BYTES + station * StoreFormat.STATION_BYTES + StoreFormat.ID_BYTES + 4);
+    }
+
+    /**
+     * @return the first sounding of the range with the date not before the given one
+     */
+    int lowerBound(int fromSounding, int toSounding, int date) {
+        int low = fromSounding;
+        int high = toSounding;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (date(middle) < date) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    int date(int sounding) {
+        return soundingInt(sounding, StoreFormat.DATE);
+    }
+
+    int hour(int sounding) {
+        return soundingInt(sounding, StoreFormat.HOUR);
+    }
+
+    int reltime(int sounding) {
+        return soundingInt(sounding, StoreFormat.RELTIME);
+    }
+
+    int numlev(int sounding) {
+        return soundingInt(sounding, StoreFormat.NUMLEV);
+    }
+
+    String psrc(int sounding) {
+        return ascii(soundingsOffset + sounding * StoreFormat.SOUNDING_BYTES + StoreFormat.PSRC,
+                StoreFormat.SOURCE_BYTES);
+    }
+
+    String npsrc(int sounding) {
+        return ascii(soundingsOffset + sounding * StoreFormat.SOUNDING_BYTES + StoreFormat.NPSRC,
+                StoreFormat.SOURCE_BYTES);
+    }
+
+    int lat(int sounding) {
+        return soundingInt(sounding, StoreFormat.LAT);
+    }
+
+    int lon(int sounding) {
+        return soundingInt(sounding, StoreFormat.LON);
+    }
+
+    int firstRow(int sounding) {
+        return soundingInt(sounding, StoreFormat.FIRST_ROW);
+    }
+
+    int rows(int sounding) {
+        return soundingInt(sounding, StoreFormat.ROWS);
+    }
+
+    int byteValue(int column, int row) {
+        return data.get(columnOffsets[column] + row);
+    }
+
+    int shortValue(int column, int row) {
+        return data.getShort(columnOffsets[column] + row * 2);
+    }
+
+    int intValue(int column, int row) {
+        return data.getInt(columnOffsets[column] + row * 4);
+    }
+
+    private int soundingInt(int sounding, int field) {
+        return data.getInt(soundingsOffset + sounding * StoreFormat.SOUNDING_BYTES + field);
+    }
+
+    private String ascii(int offset, int length) {
+        byte[] bytes = new byte[length];
+        int size = 0;
+
+        while (size < length && data.get(offset + size) != 0) {
+            bytes[size] = data.get(offset + size);
+            size++;
+        }
+
+        return new String(bytes, 0, size, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,294 @@
+package com.github.terentich.adjust.dataloader.store;
+
+import com.github.terentich.adjust.dataloader.db.BatchWriterPool;
+import com.github.terentich.adjust.dataloader.model.Flags;
+import com.github.terentich.adjust.dataloader.model.IgraBatch;
+import com.github.terentich.adjust.dataloader.model.IgraHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes the batches as segments of the local {@link IgraStore}: the soundings are collected in memory up to
+ * the segment size, sorted by the station and the time and written as a segment file ({@link StoreFormat}).
+ * <p>
+ * Every writer thread has its own segments {@code <path>/segment-<run>-<writer>-<n>.igs}; a segment is written
+ * under a temporary name and renamed when it is complete, so the store never sees a partial segment.
+ * The last segment is written when the writer is closed.
+ */
+public class StoreWriter implements BatchWriterPool.BatchWriter {
+    private static final Logger log = LoggerFactory.getLogger(StoreWriter.class);
+
+    public static final String PATH_PROPERTY = "loader.store.path";
+    public static final String SEGMENT_ROWS_PROPERTY = "loader.store.segment.rows";
+
+    private static final int DEFAULT_SEGMENT_ROWS = 4_000_000;
+    // a segment is mapped as one buffer, so it is below 2 GB
+    private static final int MAX_SEGMENT_ROWS = 50_000_000;
+    private static final Comparator<IgraHeader> SOUNDING_ORDER = Comparator.comparing(IgraHeader::id)
+            .thenComparingInt(IgraHeader::year)
+            .thenComparingInt(IgraHeader::month)
+            .thenComparingInt(IgraHeader::day)
+            .thenComparingInt(IgraHeader::hour)
+            .thenComparingInt(IgraHeader::reltime);
+
+    private final Path directory;
+    private final String namePrefix;
+    private final int segmentRows;
+    private final IgraBatch segment;
+    private final ByteBuffer out = ByteBuffer.allocate(1 << 20);
+    private FileChannel channel;
+    private long position;
+    private int segments;
+
+    public StoreWriter(Path directory, String namePrefix, int segmentRows) {
+        if (segmentRows <= 0 || segmentRows > MAX_SEGMENT_ROWS) {
+            throw new IllegalArgumentException("Segment rows must be from 1 to " + MAX_SEGMENT_ROWS + ": "
+                                               + segmentRows);
+        }
+
+        this.directory = directory;
+        this.namePrefix = namePrefix;
+        this.segmentRows = segmentRows;
+        this.segment = new IgraBatch(Math.min(segmentRows, 1_000_000));
+    }
+
+    /**
+     * Creates a factory of the writers with distinct segment names, the segments of the previous runs are kept.
+     */
+    public static BatchWriterPool.BatchWriterFactory factory(Properties config) throws IOException {
+        String path = config.getProperty(PATH_PROPERTY);
+
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Missing store path: " + PATH_PROPERTY);
+        }
+
+        Path directory = Files.createDirectories(Paths.get(path.trim()));
+        int segmentRows = Integer.parseInt(config.getProperty(SEGMENT_ROWS_PROPERTY,
+                String.valueOf(DEFAULT_SEGMENT_ROWS)).trim());
+        long run = System.currentTimeMillis();
+        AtomicInteger writerNumbers = new AtomicInteger();
+
+        return () -> new StoreWriter(directory,
+                String.format("segment-%d-%03d", run, writerNumbers.getAndIncrement()), segmentRows);
+    }
+
+    @Override
+    public int write(IgraBatch batch) throws IOException {
+        for (int i = 0; i < batch.headerCount(); i++) {
+            segment.addSounding(batch, i);
+
+            if (segment.size() >= segmentRows) {
+                writeSegment();
+            }
+        }
+
+        return batch.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!segment.isEmpty()) {
+            writeSegment();
+        }
+    }
+
+    private void writeSegment() throws IOException {
+        int soundings = segment.headerCount();
+        int rows = segment.size();
+        Integer[] order = new Integer[soundings];
+
+        for (int i = 0; i < soundings; i++) {
+            order[i] = i;
+        }
+
+        // stable: the soundings with the same time keep the order of the input
+        Arrays.sort(order, (a, b) -> SOUNDING_ORDER.compare(segment.header(a), segment.header(b)));
+
+        int stations = 0;
+
+        for (int i = 0; i < soundings; i++) {
+            if (i == 0 || !stationId(order, i).equals(stationId(order, i - 1))) {
+                stations++;
+            }
+        }
+
+        Path file = directory.resolve(String.format("%s-%04d%s", namePrefix, segments++, StoreFormat.EXTENSION));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+
+        try {
+            try (FileChannel fileChannel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                channel = fileChannel;
+                position = 0;
+                out.clear();
+
+                ensure(StoreFormat.HEADER_BYTES);
+                out.putInt(StoreFormat.MAGIC).putInt(StoreFormat.VERSION)
+                        .putInt(stations).putInt(soundings).putInt(rows).putInt(0);
+                writeStations(order);
+                padTo(StoreFormat.soundingsOffset(stations));
+                writeSoundings(order);
+
+                for (int column = 0; column < StoreFormat.COLUMNS; column++) {
+                    padTo(StoreFormat.columnOffset(column, stations, soundings, rows));
+                    writeColumn(column, order);
+                }
+
+                padTo(StoreFormat.columnOffset(StoreFormat.COLUMNS, stations, soundings, rows));
+                flush();
+                fileChannel.force(true);
+            } finally {
+                channel = null;
+            }
+
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException deleteError) {
+                e.addSuppressed(deleteError);
+            }
+
+            throw e;
+        }
+
+        log.info("Store segment has been written: {} (stations: {}, soundings: {}, rows: {})",
+                file, stations, soundings, rows);
+        segment.clear();
+    }
+
+    private String stationId(Integer[] order, int i) {
+        return segment.header(order[i]).id();
+    }
+
+    private void writeStations(Integer[] order) throws IOException {
+        int first = 0;
+
+        for (int i = 1; i <= order.length; i++) {
+            if (i == order.length || !stationId(order, i).equals(stationId(order, first))) {
+                ensure(StoreFormat.STATION_BYTES);
+                putAscii(stationId(order, first), StoreFormat.ID_BYTES);
+                out.putInt(first).putInt(i - first);
+                first = i;
+            }
+        }
+    }
+
+    private void writeSoundings(Integer[] order) throws IOException {
+        int firstRow = 0;
+
+        for (int index : order) {
+            IgraHeader header = segment.header(index);
+            int rows = segment.lastRow(index) - segment.firstRow(index);
+
+            ensure(StoreFormat.SOUNDING_BYTES);
+            out.putInt(StoreFormat.date(header.year(), header.month(), header.day()))
+                    .putInt(header.hour()).putInt(header.reltime()).putInt(header.numlev());
+            putAscii(header.psrc(), StoreFormat.SOURCE_BYTES);
+            putAscii(header.npsrc(), StoreFormat.SOURCE_BYTES);
+            out.putInt(header.lat()).putInt(header.lon()).putInt(firstRow).putInt(rows);
+            firstRow += rows;
+        }
+    }
+
+    private void writeColumn(int column, Integer[] order) throws IOException {
+        int bytes = StoreFormat.COLUMN_BYTES[column];
+
+        for (int index : order) {
+            for (int row = segment.firstRow(index); row < segment.lastRow(index); row++) {
+                ensure(bytes);
+                int value = value(column, row);
+
+                if (bytes == 1) {
+                    out.put((byte) value);
+                } else if (bytes == 2) {
+                    out.putShort((short) value);
+                } else {
+                    out.putInt(value);
+                }
+            }
+        }
+    }
+
+    private int value(int column, int row) {
+        switch (column) {
+            case StoreFormat.LVLTYP1:
+                return segment.lvltyp1(row);
+            case StoreFormat.LVLTYP2:
+                return segment.lvltyp2(row);
+            case StoreFormat.ETIME:
+                return segment.etime(row);
+            case StoreFormat.PRESS:
+                return segment.press(row);
+            case StoreFormat.PFLAG:
+                return Flags.code(segment.pflag(row));
+            case StoreFormat.GPH:
+                return segment.gph(row);
+            case StoreFormat.ZFLAG:
+                return Flags.code(segment.zflag(row));
+            case StoreFormat.TEMP:
+                return segment.temp(row);
+            case StoreFormat.TFLAG:
+                return Flags.code(segment.tflag(row));
+            case StoreFormat.RH:
+                return segment.rh(row);
+            case StoreFormat.DPDP:
+                return segment.dpdp(row);
+            case StoreFormat.WDIR:
+                return segment.wdir(row);
+            case StoreFormat.WSPD:
+                return segment.wspd(row);
+            default:
+                throw new IllegalArgumentException("Unknown column: " + column);
+        }
+    }
+
+    private void putAscii(String value, int length) {
+        if (value.length() > length) {
+            throw new IllegalArgumentException("Value is too long for the store: " + value);
+        }
+
+        out.put(value.getBytes(StandardCharsets.US_ASCII));
+
+        for (int i = value.length(); i < length; i++) {
+            out.put((byte) 0);
+        }
+    }
+
+    private void padTo(long offset) throws IOException {
+        while (position + out.position() < offset) {
+            ensure(1);
+            out.put((byte) 0);
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (out.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+
+        while (out.hasRemaining()) {
+            position += channel.write(out);
+        }
+
+        out.clear();
+    }
+}
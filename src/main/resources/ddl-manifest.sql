@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS load_manifest(
+    path        VARCHAR(4096) PRIMARY KEY,
+    size        BIGINT        NOT NULL,
+    checksum    VARCHAR(16)   NOT NULL,
+    soundings   INTEGER       NOT NULL,
+    saved_lines INTEGER       NOT NULL,
+    completed   BOOLEAN       NOT NULL,
+    updated_at  TIMESTAMP     NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS load_fingerprint(
+    fingerprint BIGINT PRIMARY KEY
+);
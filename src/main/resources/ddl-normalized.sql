@@ -0,0 +1,68 @@
+DROP TABLE IF EXISTS igra_summary CASCADE;
+DROP TABLE IF EXISTS load_manifest;
+DROP TABLE IF EXISTS load_fingerprint;
+DROP TABLE IF EXISTS sounding_level, sounding CASCADE;
+DROP TABLE IF EXISTS igra_data;
+
+CREATE TABLE sounding(
+    sounding_id BIGSERIAL   PRIMARY KEY,
+    id          VARCHAR(11) NOT NULL,
+    year        SMALLINT    NOT NULL,
+    month       SMALLINT    NOT NULL,
+    day         SMALLINT    NOT NULL,
+    hour        SMALLINT    NOT NULL,
+    reltime     SMALLINT    NOT NULL,
+    numlev      SMALLINT    NOT NULL,
+    p_src       VARCHAR(8)  NOT NULL,
+    np_src      VARCHAR(8)  NOT NULL,
+    lat         INTEGER     NOT NULL,
+    lon         INTEGER     NOT NULL
+);
+
+CREATE TABLE sounding_level(
+    sounding_id BIGINT     NOT NULL REFERENCES sounding (sounding_id),
+    lvltyp1     SMALLINT   NOT NULL,
+    lvltyp2     SMALLINT   NOT NULL,
+    etime       SMALLINT   NOT NULL,
+    press       INTEGER    NOT NULL,
+    pflag       VARCHAR(1) NOT NULL,
+    gph         INTEGER    NOT NULL,
+    zflag       VARCHAR(1) NOT NULL,
+    temp        SMALLINT   NOT NULL,
+    tflag       VARCHAR(1) NOT NULL,
+    rh          SMALLINT   NOT NULL,
+    dpdp        SMALLINT   NOT NULL,
+    wdir        SMALLINT   NOT NULL,
+    wspd        SMALLINT   NOT NULL,
+
+    thousands_altitude INTEGER NOT NULL
+);
+
+CREATE VIEW igra_data AS
+SELECT s.id,
+       s.year,
+       s.month,
+       s.day,
+       s.hour,
+       s.reltime,
+       s.numlev,
+       s.p_src,
+       s.np_src,
+       s.lat,
+       s.lon,
+       l.lvltyp1,
+       l.lvltyp2,
+       l.etime,
+       l.press,
+       l.pflag,
+       l.gph,
+       l.zflag,
+       l.temp,
+       l.tflag,
+       l.rh,
+       l.dpdp,
+       l.wdir,
+       l.wspd,
+       l.thousands_altitude
+FROM sounding s
+         JOIN sounding_level l ON l.sounding_id = s.sounding_id;
@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS ${partition}_station_idx ON ${partition} (id, year, month, day, hour);
+ALTER TABLE ${partition} DROP CONSTRAINT IF EXISTS ${partition}_date_check;
+ALTER TABLE ${partition} ADD CONSTRAINT ${partition}_date_check CHECK (month BETWEEN 1 AND 12 AND day BETWEEN 1 AND 31);
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS igra_data_station_idx ON igra_data (id, year, month, day, hour);
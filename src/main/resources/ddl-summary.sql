@@ -0,0 +1,40 @@
+CREATE TABLE IF NOT EXISTS igra_summary(
+    id                 VARCHAR(11) NOT NULL,
+    year               SMALLINT    NOT NULL,
+    month              SMALLINT    NOT NULL,
+    thousands_altitude INTEGER     NOT NULL,
+    levels             BIGINT      NOT NULL,
+    temp_count         BIGINT      NOT NULL,
+    temp_min           SMALLINT,
+    temp_max           SMALLINT,
+    temp_sum           BIGINT      NOT NULL,
+    rh_count           BIGINT      NOT NULL,
+    rh_min             SMALLINT,
+    rh_max             SMALLINT,
+    rh_sum             BIGINT      NOT NULL,
+    wspd_count         BIGINT      NOT NULL,
+    wspd_min           SMALLINT,
+    wspd_max           SMALLINT,
+    wspd_sum           BIGINT      NOT NULL,
+    PRIMARY KEY (id, year, month, thousands_altitude)
+);
+
+CREATE OR REPLACE VIEW igra_summary_stats AS
+SELECT id,
+       year,
+       month,
+       thousands_altitude,
+       levels,
+       temp_count,
+       temp_min,
+       temp_max,
+       temp_sum::DOUBLE PRECISION / NULLIF(temp_count, 0) AS temp_mean,
+       rh_count,
+       rh_min,
+       rh_max,
+       rh_sum::DOUBLE PRECISION / NULLIF(rh_count, 0)     AS rh_mean,
+       wspd_count,
+       wspd_min,
+       wspd_max,
+       wspd_sum::DOUBLE PRECISION / NULLIF(wspd_count, 0) AS wspd_mean
+FROM igra_summary;
@@ -1,3 +1,7 @@
+DROP TABLE IF EXISTS igra_summary CASCADE;
+DROP TABLE IF EXISTS load_manifest;
+DROP TABLE IF EXISTS load_fingerprint;
+DROP TABLE IF EXISTS sounding_level, sounding CASCADE;
 DROP TABLE IF EXISTS igra_data;
 
 CREATE TABLE igra_data(
@@ -25,5 +29,7 @@ CREATE TABLE igra_data(
     rh      SMALLINT   NOT NULL,
     dpdp    SMALLINT   NOT NULL,
     wdir    SMALLINT   NOT NULL,
-    wspd    SMALLINT   NOT NULL
+    wspd    SMALLINT   NOT NULL,
+
+    thousands_altitude INTEGER NOT NULL
 );